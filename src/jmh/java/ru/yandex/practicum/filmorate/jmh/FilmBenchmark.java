@@ -0,0 +1,67 @@
+package ru.yandex.practicum.filmorate.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Film storage and service hot paths. {@code Throughput} gives ops/ms, {@code SampleTime} gives latency
+ * percentiles, and the {@code gc} profiler enabled by the {@code jmh} profile adds allocation rate.
+ * {@link FilmDbStorage} is called directly, bypassing the cache, to measure the SQL and hydration cost.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilmBenchmark {
+
+    private FilmDbStorage filmStorage;
+    private FilmService filmService;
+
+    @Setup
+    public void setUp(FilmorateState state) {
+        filmStorage = state.bean(FilmDbStorage.class);
+        filmService = state.bean(FilmService.class);
+    }
+
+    @Benchmark
+    public List<Film> storageFindAll() {
+        return filmStorage.findAll();
+    }
+
+    @Benchmark
+    public Film storageFindById(FilmorateState state) {
+        return filmStorage.findById(state.randomFilmId());
+    }
+
+    @Benchmark
+    public List<Film> servicePopularFilms() {
+        return filmService.findPopularFilms(10, null, null, Collections.emptySet());
+    }
+
+    @Benchmark
+    public List<Film> servicePopularFilmsByGenre() {
+        return filmService.findPopularFilms(10, 1, null, Collections.emptySet());
+    }
+
+    @Benchmark
+    public boolean serviceAddLike(FilmorateState state) {
+        return filmService.addLike(state.randomFilmId(), state.randomUserId());
+    }
+}
@@ -0,0 +1,83 @@
+package ru.yandex.practicum.filmorate.jmh;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.datagen.Dataset;
+import ru.yandex.practicum.filmorate.datagen.DatasetGenerator;
+import ru.yandex.practicum.filmorate.datagen.DatasetSpec;
+import ru.yandex.practicum.filmorate.service.PopularityLeaderboard;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Application context on a fresh in-memory H2 database filled by {@link DatasetGenerator} with
+ * {@code films} films and as many users. Likes and friendships are skewed; {@code likesPerFilm} and
+ * {@code friendsPerUser} are averages.
+ */
+@State(Scope.Benchmark)
+public class FilmorateState {
+
+    @Param({"1000", "10000"})
+    public int films;
+
+    @Param({"20"})
+    public int likesPerFilm;
+
+    @Param({"20"})
+    public int friendsPerUser;
+
+    ConfigurableApplicationContext context;
+
+    private int[] filmIds;
+    private int[] userIds;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(FilmorateApplication.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .run("--spring.datasource.url=jdbc:h2:mem:jmh-" + UUID.randomUUID(),
+                        "--logging.level.root=WARN",
+                        // непрерывная запись JFR искажала бы замеры
+                        "--filmorate.jfr.enabled=false",
+                        "--filmorate.leaderboard.reconcile-interval-ms=3600000");
+        DatasetSpec spec = new DatasetSpec();
+        spec.setFilms(films);
+        spec.setUsers(films);
+        spec.setLikes((long) films * likesPerFilm);
+        spec.setFriendships((long) films * friendsPerUser);
+        Dataset dataset = new DatasetGenerator(context.getBean(JdbcTemplate.class)).generate(spec);
+        filmIds = dataset.getFilmIds();
+        userIds = dataset.getUserIds();
+        // лидерборд загрузился из пустой базы при старте контекста
+        context.getBean(PopularityLeaderboard.class).reconcile();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    int randomFilmId() {
+        return filmIds[ThreadLocalRandom.current().nextInt(filmIds.length)];
+    }
+
+    int randomUserId() {
+        return userIds[ThreadLocalRandom.current().nextInt(userIds.length)];
+    }
+}
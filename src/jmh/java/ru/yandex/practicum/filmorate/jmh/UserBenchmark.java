@@ -0,0 +1,47 @@
+package ru.yandex.practicum.filmorate.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.UserSummary;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Friend list lookups through {@link UserService}. Friend lists are not cached, so apart from the existence
+ * checks, which the user cache may answer, every call runs the friend query against the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserBenchmark {
+
+    private UserService userService;
+
+    @Setup
+    public void setUp(FilmorateState state) {
+        userService = state.bean(UserService.class);
+    }
+
+    @Benchmark
+    public List<UserSummary> findFriends(FilmorateState state) {
+        return userService.findFriends(state.randomUserId());
+    }
+
+    @Benchmark
+    public List<UserSummary> findMutualFriends(FilmorateState state) {
+        return userService.findMutualFriends(state.randomUserId(), state.randomUserId());
+    }
+}
@@ -0,0 +1,41 @@
+package ru.yandex.practicum.filmorate.loadtest;
+
+import lombok.Getter;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencies of one endpoint in microseconds. {@code responseTime} is measured from the moment the request
+ * was scheduled to go out, so a stalled server also charges the requests that queued up behind it
+ * (coordinated omission correction); {@code serviceTime} is measured from the moment it actually went out.
+ */
+@Getter
+class EndpointStats {
+
+    private final Histogram responseTime = new Histogram(3);
+    private final Histogram serviceTime = new Histogram(3);
+    private long clientErrors;
+    private long failures;
+
+    void record(int status, long responseNanos, long serviceNanos) {
+        responseTime.recordValue(TimeUnit.NANOSECONDS.toMicros(responseNanos));
+        serviceTime.recordValue(TimeUnit.NANOSECONDS.toMicros(serviceNanos));
+        if (status == 0 || status >= 500) {
+            failures++;
+        } else if (status >= 400) {
+            clientErrors++;
+        }
+    }
+
+    void add(EndpointStats other) {
+        responseTime.add(other.responseTime);
+        serviceTime.add(other.serviceTime);
+        clientErrors += other.clientErrors;
+        failures += other.failures;
+    }
+
+    long getCount() {
+        return responseTime.getTotalCount();
+    }
+}
@@ -0,0 +1,52 @@
+package ru.yandex.practicum.filmorate.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Plain-text table with one row per endpoint. Latencies are in milliseconds.
+ */
+final class LoadReport {
+
+    private static final String ROW = "%-42s %8s %8s %6s %6s %8s %8s %8s %8s %8s %8s%n";
+
+    private LoadReport() {
+    }
+
+    static String format(String title, Duration duration, Map<String, EndpointStats> stats) {
+        StringBuilder report = new StringBuilder(title).append(System.lineSeparator());
+        report.append("resp = from scheduled send time (corrected for coordinated omission), "
+                + "svc = from actual send time").append(System.lineSeparator());
+        report.append(String.format(Locale.ROOT, ROW, "endpoint", "count", "req/s", "4xx", "fail",
+                "p50", "p90", "p99", "p99.9", "max", "svc p99"));
+        EndpointStats total = new EndpointStats();
+        stats.forEach((endpoint, endpointStats) -> {
+            report.append(row(endpoint, duration, endpointStats));
+            total.add(endpointStats);
+        });
+        report.append(row("TOTAL", duration, total));
+        return report.toString();
+    }
+
+    private static String row(String endpoint, Duration duration, EndpointStats stats) {
+        Histogram response = stats.getResponseTime();
+        return String.format(Locale.ROOT, ROW, endpoint,
+                stats.getCount(),
+                String.format(Locale.ROOT, "%.1f", stats.getCount() * 1000.0 / duration.toMillis()),
+                stats.getClientErrors(),
+                stats.getFailures(),
+                millis(response.getValueAtPercentile(50)),
+                millis(response.getValueAtPercentile(90)),
+                millis(response.getValueAtPercentile(99)),
+                millis(response.getValueAtPercentile(99.9)),
+                millis(response.getMaxValue()),
+                millis(stats.getServiceTime().getValueAtPercentile(99)));
+    }
+
+    private static String millis(long micros) {
+        return String.format(Locale.ROOT, "%.2f", micros / 1000.0);
+    }
+}
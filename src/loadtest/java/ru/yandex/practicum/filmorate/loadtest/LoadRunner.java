@@ -0,0 +1,120 @@
+package ru.yandex.practicum.filmorate.loadtest;
+
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Closed-loop load: each of {@code threads} workers sends one request at a time and waits for the answer.
+ * With a positive {@code rate} the workers follow a fixed schedule of {@code rate} requests per second
+ * in total, and latency is counted from the scheduled send time; with {@code rate = 0} they send as
+ * fast as the server answers and both histograms are the same.
+ */
+@RequiredArgsConstructor
+class LoadRunner {
+
+    private final HttpClient client;
+    private final URI baseUri;
+    private final List<Operation> operations;
+    private final int threads;
+    private final int rate;
+
+    Map<String, EndpointStats> run(Duration duration) throws InterruptedException {
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        List<Future<Map<String, EndpointStats>>> results = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            int worker = i;
+            results.add(workers.submit(() -> work(worker, start, end)));
+        }
+        Map<String, EndpointStats> total = new TreeMap<>();
+        try {
+            for (Future<Map<String, EndpointStats>> result : results) {
+                result.get().forEach((endpoint, stats) ->
+                        total.computeIfAbsent(endpoint, e -> new EndpointStats()).add(stats));
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Load worker failed", e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+        return total;
+    }
+
+    private Map<String, EndpointStats> work(int worker, long start, long end) {
+        Random random = ThreadLocalRandom.current();
+        int[] cumulativeWeights = cumulativeWeights();
+        Map<String, EndpointStats> stats = new TreeMap<>();
+        long interval = rate > 0 ? threads * 1_000_000_000L / rate : 0;
+        // потоки сдвинуты друг относительно друга, чтобы не отправлять запросы пачками
+        long intended = start + interval * worker / threads;
+        while (!Thread.currentThread().isInterrupted()) {
+            long now = System.nanoTime();
+            if (interval == 0) {
+                intended = now;
+            }
+            if (intended >= end) {
+                break;
+            }
+            while (now < intended) {
+                LockSupport.parkNanos(intended - now);
+                now = System.nanoTime();
+            }
+            Operation operation = pick(random, cumulativeWeights);
+            long sent = System.nanoTime();
+            int status = send(operation, random);
+            long done = System.nanoTime();
+            stats.computeIfAbsent(operation.label(), e -> new EndpointStats())
+                    .record(status, done - intended, done - sent);
+            intended += interval;
+        }
+        return stats;
+    }
+
+    private int send(Operation operation, Random random) {
+        try {
+            return client.send(operation.request(baseUri, random), HttpResponse.BodyHandlers.discarding())
+                    .statusCode();
+        } catch (IOException e) {
+            return 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        }
+    }
+
+    private int[] cumulativeWeights() {
+        int[] cumulative = new int[operations.size()];
+        int sum = 0;
+        for (int i = 0; i < cumulative.length; i++) {
+            sum += operations.get(i).getWeight();
+            cumulative[i] = sum;
+        }
+        return cumulative;
+    }
+
+    private Operation pick(Random random, int[] cumulativeWeights) {
+        int roll = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        int i = 0;
+        while (roll >= cumulativeWeights[i]) {
+            i++;
+        }
+        return operations.get(i);
+    }
+}
@@ -0,0 +1,99 @@
+package ru.yandex.practicum.filmorate.loadtest;
+
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Load test entry point, run with {@code mvn -P loadtest verify -Dloadtest.args="scenario=like-storm rate=2000"}.
+ * Options are {@code key=value} pairs:
+ * <ul>
+ *     <li>{@code scenario} - browse, like-storm or friend-churn ({@code browse});</li>
+ *     <li>{@code threads} - concurrent connections ({@code 16});</li>
+ *     <li>{@code rate} - scheduled requests per second over all threads, 0 for no pacing ({@code 1000});</li>
+ *     <li>{@code duration}, {@code warmup} - seconds ({@code 30}, {@code 10});</li>
+ *     <li>{@code films}, {@code users}, {@code likes}, {@code friendships} - dataset size
+ *     ({@code 10000}, {@code 10000}, 20 per film, 20 per user);</li>
+ *     <li>{@code target} - base URL of a running instance with that dataset; without it an instance is
+ *     started in-process on a random port and filled by the {@code datagen} profile.</li>
+ * </ul>
+ */
+public class LoadTest {
+
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> options = parse(args);
+        Scenario scenario = Scenario.valueOf(options.getOrDefault("scenario", "browse")
+                .toUpperCase(Locale.ROOT).replace('-', '_'));
+        int threads = Integer.parseInt(options.getOrDefault("threads", "16"));
+        int rate = Integer.parseInt(options.getOrDefault("rate", "1000"));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "30")));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "10")));
+        int films = Integer.parseInt(options.getOrDefault("films", "10000"));
+        int users = Integer.parseInt(options.getOrDefault("users", "10000"));
+
+        ConfigurableApplicationContext app = null;
+        URI baseUri;
+        if (options.containsKey("target")) {
+            baseUri = URI.create(options.get("target"));
+        } else {
+            app = startApplication(films, users,
+                    Long.parseLong(options.getOrDefault("likes", String.valueOf(films * 20L))),
+                    Long.parseLong(options.getOrDefault("friendships", String.valueOf(users * 20L))));
+            baseUri = URI.create("http://localhost:" + ((WebServerApplicationContext) app).getWebServer().getPort());
+        }
+        try {
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+            LoadRunner runner = new LoadRunner(client, baseUri, scenario.operations(films, users), threads, rate);
+            runner.run(warmup);
+            Map<String, EndpointStats> stats = runner.run(duration);
+            String title = String.format(Locale.ROOT, "%s against %s: %d threads, %s, %d s", scenario, baseUri,
+                    threads, rate > 0 ? rate + " req/s scheduled" : "unpaced", duration.getSeconds());
+            System.out.println(LoadReport.format(title, duration, stats));
+        } finally {
+            if (app != null) {
+                app.close();
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext startApplication(int films, int users, long likes,
+                                                                   long friendships) {
+        return new SpringApplicationBuilder(FilmorateApplication.class)
+                .profiles("datagen")
+                .bannerMode(Banner.Mode.OFF)
+                // аргументами, а не default properties, чтобы перекрыть application-datagen.properties
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:loadtest",
+                        "--logging.level.root=WARN",
+                        // непрерывная запись JFR искажала бы замеры
+                        "--filmorate.jfr.enabled=false",
+                        "--filmorate.datagen.films=" + films,
+                        "--filmorate.datagen.users=" + users,
+                        "--filmorate.datagen.likes=" + likes,
+                        "--filmorate.datagen.friendships=" + friendships);
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Expected key=value, got " + arg);
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+}
@@ -0,0 +1,49 @@
+package ru.yandex.practicum.filmorate.loadtest;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * One kind of request in a scenario. {@code endpoint} is the route template the results are grouped by,
+ * {@code path} builds a concrete path and query for the next request.
+ */
+@Getter
+@RequiredArgsConstructor
+class Operation {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+
+    private final String method;
+    private final String endpoint;
+    private final int weight;
+    private final Function<Random, String> path;
+
+    static Operation get(String endpoint, int weight, Function<Random, String> path) {
+        return new Operation("GET", endpoint, weight, path);
+    }
+
+    static Operation put(String endpoint, int weight, Function<Random, String> path) {
+        return new Operation("PUT", endpoint, weight, path);
+    }
+
+    static Operation delete(String endpoint, int weight, Function<Random, String> path) {
+        return new Operation("DELETE", endpoint, weight, path);
+    }
+
+    String label() {
+        return method + " " + endpoint;
+    }
+
+    HttpRequest request(URI baseUri, Random random) {
+        return HttpRequest.newBuilder(baseUri.resolve(path.apply(random)))
+                .method(method, HttpRequest.BodyPublishers.noBody())
+                .timeout(REQUEST_TIMEOUT)
+                .build();
+    }
+}
@@ -0,0 +1,62 @@
+package ru.yandex.practicum.filmorate.loadtest;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Request mixes for the load test. Film and user ids are drawn from {@code 1..films} and {@code 1..users},
+ * which is what the {@code datagen} profile produces on an empty database.
+ */
+enum Scenario {
+
+    /** Mostly reads: film pages and cards, the popular list, user profiles and friend lists. */
+    BROWSE {
+        @Override
+        List<Operation> operations(int films, int users) {
+            return List.of(
+                    Operation.get("/films/{id}", 40, r -> "/films/" + id(r, films)),
+                    Operation.get("/films?afterId&limit", 15, r -> "/films?afterId=" + r.nextInt(films) + "&limit=50"),
+                    Operation.get("/films/popular", 20, r -> "/films/popular?count=10"),
+                    Operation.get("/films/popular?genreId", 5,
+                            r -> "/films/popular?count=10&genreId=" + (r.nextInt(6) + 1)),
+                    Operation.get("/users/{id}", 10, r -> "/users/" + id(r, users)),
+                    Operation.get("/users/{id}/friends", 10, r -> "/users/" + id(r, users) + "/friends"));
+        }
+    },
+
+    /** Everybody likes and unlikes the same film while others read the popular list. */
+    LIKE_STORM {
+        @Override
+        List<Operation> operations(int films, int users) {
+            return List.of(
+                    Operation.put("/films/{id}/like/{userId}", 60, r -> "/films/" + HOT_FILM + "/like/" + id(r, users)),
+                    Operation.delete("/films/{id}/like/{userId}", 20,
+                            r -> "/films/" + HOT_FILM + "/like/" + id(r, users)),
+                    Operation.get("/films/{id}", 10, r -> "/films/" + HOT_FILM),
+                    Operation.get("/films/popular", 10, r -> "/films/popular?count=10"));
+        }
+    },
+
+    /** Users keep adding and removing friends while their friend lists are being read. */
+    FRIEND_CHURN {
+        @Override
+        List<Operation> operations(int films, int users) {
+            return List.of(
+                    Operation.put("/users/{id}/friends/{friendId}", 30,
+                            r -> "/users/" + id(r, users) + "/friends/" + id(r, users)),
+                    Operation.delete("/users/{id}/friends/{friendId}", 20,
+                            r -> "/users/" + id(r, users) + "/friends/" + id(r, users)),
+                    Operation.get("/users/{id}/friends", 35, r -> "/users/" + id(r, users) + "/friends"),
+                    Operation.get("/users/{id}/friends/common/{otherId}", 15,
+                            r -> "/users/" + id(r, users) + "/friends/common/" + id(r, users)));
+        }
+    };
+
+    private static final int HOT_FILM = 1;
+
+    abstract List<Operation> operations(int films, int users);
+
+    private static int id(Random random, int count) {
+        return random.nextInt(count) + 1;
+    }
+}
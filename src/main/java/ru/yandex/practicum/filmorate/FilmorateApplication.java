@@ -2,11 +2,13 @@ package ru.yandex.practicum.filmorate;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import java.io.IOException;
 import java.net.URISyntaxException;
 
 @SpringBootApplication
+@EnableScheduling
 public class FilmorateApplication {
 
     public static void main(String[] args) throws URISyntaxException, IOException, InterruptedException {
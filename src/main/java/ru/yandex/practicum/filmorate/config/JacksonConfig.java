@@ -0,0 +1,19 @@
+package ru.yandex.practicum.filmorate.config;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JacksonConfig {
+
+    /**
+     * Film and User carry a {@code @JsonFilter} for sparse fieldsets. Without a filter for the
+     * current response they are serialized in full.
+     */
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer sparseFieldsFilters() {
+        return builder -> builder.filters(new SimpleFilterProvider().setFailOnUnknownId(false));
+    }
+}
@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+
+import java.util.HashSet;
+import java.util.Set;
+
+final class FieldFilters {
+
+    static final String FILM = "film";
+    static final String USER = "user";
+
+    private FieldFilters() {
+    }
+
+    // id нужен клиенту для курсора, а likes и так скрыт, пока его не запросили через include
+    static FilterProvider of(String filterId, Set<String> fields) {
+        SimpleFilterProvider filters = new SimpleFilterProvider().setFailOnUnknownId(false);
+        if (fields == null || fields.isEmpty()) {
+            return filters.addFilter(filterId, SimpleBeanPropertyFilter.serializeAll());
+        }
+        Set<String> visible = new HashSet<>(fields);
+        visible.add("id");
+        visible.add("likes");
+        return filters.addFilter(filterId, SimpleBeanPropertyFilter.filterOutAllExcept(visible));
+    }
+}
@@ -1,14 +1,19 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.service.FilmService;
 
 import javax.validation.Valid;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 @Slf4j
 @RestController
@@ -17,19 +22,51 @@ public class FilmController {
 
     private final FilmService filmService;
 
+    private final ObjectMapper objectMapper;
+
     @Autowired
-    public FilmController(FilmService filmService) {
+    public FilmController(FilmService filmService, ObjectMapper objectMapper) {
         this.filmService = filmService;
+        this.objectMapper = objectMapper;
     }
 
+    /**
+     * Returns one page of films ordered by id, not the whole table: without {@code limit} the page holds
+     * {@code filmorate.pagination.default-limit} (100) films, and larger limits are capped at
+     * {@code filmorate.pagination.max-limit} (1000). Clients that expect the full list have to follow the
+     * {@value PageResponses#NEXT_CURSOR_HEADER} header, passing it back as {@code afterId} until it is absent,
+     * or read {@code /films/export}.
+     */
     @GetMapping()
-    public List<Film> getAllFilms() {
-        return new ArrayList<>(filmService.findAllFilms());
+    public ResponseEntity<MappingJacksonValue> getAllFilms(@RequestParam(value = "afterId", defaultValue = "0")
+                                                           int afterId,
+                                                           @RequestParam(value = "limit", required = false)
+                                                           Integer limit,
+                                                           @RequestParam(value = "include", required = false)
+                                                           Set<String> include,
+                                                           @RequestParam(value = "fields", required = false)
+                                                           Set<String> fields) {
+        return PageResponses.ok(filmService.findFilmsPage(afterId, limit, include, fields), FieldFilters.FILM, fields);
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody exportFilms() {
+        return out -> NdjsonWriter.write(out, objectMapper, filmService::exportFilms);
     }
 
     @GetMapping("/{id}")
-    public Film getFilmById(@PathVariable int id) {
-        return filmService.findFilmById(id);
+    public Film getFilmById(@PathVariable int id,
+                            @RequestParam(value = "include", required = false) Set<String> include) {
+        return filmService.findFilmById(id, include);
+    }
+
+    @GetMapping("/{id}/likes")
+    public ResponseEntity<List<Integer>> getFilmLikes(@PathVariable int id,
+                                                      @RequestParam(value = "afterId", defaultValue = "0")
+                                                      int afterId,
+                                                      @RequestParam(value = "limit", required = false)
+                                                      Integer limit) {
+        return PageResponses.ok(filmService.findFilmLikes(id, afterId, limit));
     }
 
     @PostMapping()
@@ -54,8 +91,11 @@ public class FilmController {
     }
 
     @GetMapping("/popular")
-    public List<Film> getPopularFilms(@RequestParam(value = "count", defaultValue = "10") int count) {
-        return filmService.findPopularFilms(count);
+    public List<Film> getPopularFilms(@RequestParam(value = "count", defaultValue = "10") int count,
+                                      @RequestParam(value = "genreId", required = false) Integer genreId,
+                                      @RequestParam(value = "year", required = false) Integer year,
+                                      @RequestParam(value = "include", required = false) Set<String> include) {
+        return filmService.findPopularFilms(count, genreId, year, include);
     }
 
     @DeleteMapping("/{id}")
@@ -0,0 +1,39 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+final class NdjsonWriter {
+
+    private NdjsonWriter() {
+    }
+
+    /**
+     * Writes every element produced by {@code source} as one JSON line and flushes it right away,
+     * so nothing but the current element is kept in memory.
+     */
+    static <T> void write(OutputStream out, ObjectMapper objectMapper, Consumer<Consumer<T>> source)
+            throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            try {
+                source.accept(element -> {
+                    try {
+                        objectMapper.writeValue(generator, element);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import ru.yandex.practicum.filmorate.model.Page;
+
+import java.util.List;
+import java.util.Set;
+
+final class PageResponses {
+
+    /**
+     * Id of the last item on the page, to be sent back as {@code afterId}; absent on the last page.
+     */
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private PageResponses() {
+    }
+
+    static <T> ResponseEntity<List<T>> ok(Page<T> page) {
+        return withCursor(page).body(page.getItems());
+    }
+
+    static <T> ResponseEntity<MappingJacksonValue> ok(Page<T> page, String filterId, Set<String> fields) {
+        MappingJacksonValue body = new MappingJacksonValue(page.getItems());
+        body.setFilters(FieldFilters.of(filterId, fields));
+        return withCursor(page).body(body);
+    }
+
+    private static ResponseEntity.BodyBuilder withCursor(Page<?> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextAfterId() != null) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(page.getNextAfterId()));
+        }
+        return response;
+    }
+}
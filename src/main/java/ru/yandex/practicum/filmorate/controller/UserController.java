@@ -1,12 +1,17 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserSummary;
 import ru.yandex.practicum.filmorate.service.UserService;
 
 import javax.validation.Valid;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
@@ -17,9 +22,28 @@ public class UserController {
 
     private final UserService userService;
 
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Returns one page of users ordered by id, not the whole table: without {@code limit} the page holds
+     * {@code filmorate.pagination.default-limit} (100) users, and larger limits are capped at
+     * {@code filmorate.pagination.max-limit} (1000). Clients that expect the full list have to follow the
+     * {@value PageResponses#NEXT_CURSOR_HEADER} header, passing it back as {@code afterId} until it is absent,
+     * or read {@code /users/export}.
+     */
     @GetMapping
-    public List<User> getAllUsers() {
-        return new ArrayList<>(userService.findAllUsers());
+    public ResponseEntity<MappingJacksonValue> getAllUsers(@RequestParam(value = "afterId", defaultValue = "0")
+                                                           int afterId,
+                                                           @RequestParam(value = "limit", required = false)
+                                                           Integer limit,
+                                                           @RequestParam(value = "fields", required = false)
+                                                           Set<String> fields) {
+        return PageResponses.ok(userService.findUsersPage(afterId, limit, fields), FieldFilters.USER, fields);
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody exportUsers() {
+        return out -> NdjsonWriter.write(out, objectMapper, userService::exportUsers);
     }
 
     @GetMapping("/{id}")
@@ -48,12 +72,12 @@ public class UserController {
     }
 
     @GetMapping("/{id}/friends")
-    public List<User> getFriends(@PathVariable int id) {
+    public List<UserSummary> getFriends(@PathVariable int id) {
         return userService.findFriends(id);
     }
 
     @GetMapping("/{id}/friends/common/{otherId}")
-    public Set<User> getMutualFriends(@PathVariable int id, @PathVariable int otherId) {
+    public List<UserSummary> getMutualFriends(@PathVariable int id, @PathVariable int otherId) {
         return userService.findMutualFriends(id, otherId);
     }
 
@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.datagen;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Ids and row counts of a dataset written by {@link DatasetGenerator}.
+ */
+@Getter
+@RequiredArgsConstructor
+public class Dataset {
+    private final int[] filmIds;
+    private final int[] userIds;
+    private final long likes;
+    private final long friendships;
+}
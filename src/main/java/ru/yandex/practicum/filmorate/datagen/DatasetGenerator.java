@@ -0,0 +1,269 @@
+package ru.yandex.practicum.filmorate.datagen;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.IntHashSet;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Populates films, users, film_genre, likes and friendships with a synthetic dataset described by
+ * {@link DatasetSpec}. Rows are appended to whatever is already in the database and written with JDBC
+ * batches; {@code films.like_count} is set to match the generated likes. The same spec and seed always
+ * give the same dataset.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class DatasetGenerator {
+
+    private static final long PROGRESS_STEP = 1_000_000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public Dataset generate(DatasetSpec spec) {
+        long start = System.nanoTime();
+        Random random = new Random(spec.getSeed());
+        int[] userIds = insertUsers(spec);
+        int[] filmIds = insertFilms(spec, random);
+        long likes = insertLikes(spec, filmIds, userIds, random);
+        long friendships = insertFriendships(spec, userIds, random);
+        log.info("Generated {} films, {} users, {} likes and {} friendships in {} s", filmIds.length,
+                userIds.length, likes, friendships, (System.nanoTime() - start) / 1_000_000_000);
+        return new Dataset(filmIds, userIds, likes, friendships);
+    }
+
+    /**
+     * Splits {@code total} between {@code ranks} items in proportion to {@code 1 / rank^exponent},
+     * giving no item more than {@code cap}.
+     */
+    static int[] zipfCounts(int ranks, long total, double exponent, int cap) {
+        double[] weights = new double[ranks];
+        double sum = 0;
+        for (int k = 0; k < ranks; k++) {
+            weights[k] = 1 / Math.pow(k + 1, exponent);
+            sum += weights[k];
+        }
+        int[] counts = new int[ranks];
+        long assigned = 0;
+        for (int k = 0; k < ranks; k++) {
+            counts[k] = (int) Math.min(cap, (long) (total * weights[k] / sum));
+            assigned += counts[k];
+        }
+        // остаток от округления и от упора в cap раздаём по кругу, начиная с самых популярных
+        long left = Math.min(total, (long) ranks * cap) - assigned;
+        for (int k = 0; left > 0; k = (k + 1) % ranks) {
+            if (counts[k] < cap) {
+                counts[k]++;
+                left--;
+            }
+        }
+        return counts;
+    }
+
+    private int[] insertUsers(DatasetSpec spec) {
+        int firstId = maxId("users");
+        List<Object[]> rows = new ArrayList<>(spec.getBatchSize());
+        for (int i = 0; i < spec.getUsers(); i++) {
+            rows.add(new Object[]{"user" + i + "@datagen.local", "user" + i, "User " + i,
+                    Date.valueOf(LocalDate.of(1950 + i % 55, i % 12 + 1, i % 28 + 1))});
+            if (rows.size() == spec.getBatchSize()) {
+                insertUserRows(rows);
+            }
+        }
+        insertUserRows(rows);
+        return idsAfter("users", firstId);
+    }
+
+    private void insertUserRows(List<Object[]> rows) {
+        jdbcTemplate.batchUpdate("INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)", rows);
+        rows.clear();
+    }
+
+    private int[] insertFilms(DatasetSpec spec, Random random) {
+        int[] mpaIds = jdbcTemplate.queryForList("SELECT id FROM mpa ORDER BY id", Integer.class).stream()
+                .mapToInt(Integer::intValue)
+                .toArray();
+        int[] genreIds = jdbcTemplate.queryForList("SELECT id FROM genres ORDER BY id", Integer.class).stream()
+                .mapToInt(Integer::intValue)
+                .toArray();
+        int firstId = maxId("films");
+        List<Object[]> rows = new ArrayList<>(spec.getBatchSize());
+        for (int i = 0; i < spec.getFilms(); i++) {
+            rows.add(new Object[]{"Film " + i, "Generated film " + i,
+                    Date.valueOf(LocalDate.of(1900 + random.nextInt(124), random.nextInt(12) + 1,
+                            random.nextInt(28) + 1)),
+                    60 + random.nextInt(120), mpaIds[random.nextInt(mpaIds.length)]});
+            if (rows.size() == spec.getBatchSize()) {
+                insertFilmRows(rows);
+            }
+        }
+        insertFilmRows(rows);
+        int[] filmIds = idsAfter("films", firstId);
+
+        PairWriter filmGenres = new PairWriter("film_genre",
+                "INSERT INTO film_genre (film_id, genre_id) VALUES (?, ?)", spec.getBatchSize());
+        int genresPerFilm = Math.min(spec.getMaxGenresPerFilm(), genreIds.length);
+        for (int filmId : filmIds) {
+            int count = genresPerFilm == 0 ? 0 : random.nextInt(genresPerFilm) + 1;
+            for (int index : pickDistinct(random, genreIds.length, count, -1).toIntArray()) {
+                filmGenres.add(filmId, genreIds[index]);
+            }
+        }
+        filmGenres.flush();
+        return filmIds;
+    }
+
+    private void insertFilmRows(List<Object[]> rows) {
+        jdbcTemplate.batchUpdate("INSERT INTO films (name, description, release_date, duration, mpa_id) " +
+                "VALUES (?, ?, ?, ?, ?)", rows);
+        rows.clear();
+    }
+
+    private long insertLikes(DatasetSpec spec, int[] filmIds, int[] userIds, Random random) {
+        if (filmIds.length == 0 || userIds.length == 0) {
+            return 0;
+        }
+        int[] counts = zipfCounts(filmIds.length, spec.getLikes(), spec.getLikeSkew(), userIds.length);
+        // ранг популярности не должен совпадать с порядком id
+        int[] byRank = shuffled(filmIds, random);
+        PairWriter likes = new PairWriter("likes",
+                "INSERT INTO likes (film_id, user_id) VALUES (?, ?)", spec.getBatchSize());
+        PairWriter likeCounts = new PairWriter("films.like_count",
+                "UPDATE films SET like_count = ? WHERE id = ?", spec.getBatchSize());
+        for (int rank = 0; rank < byRank.length; rank++) {
+            for (int index : pickDistinct(random, userIds.length, counts[rank], -1).toIntArray()) {
+                likes.add(byRank[rank], userIds[index]);
+            }
+            likeCounts.add(counts[rank], byRank[rank]);
+        }
+        likes.flush();
+        likeCounts.flush();
+        return likes.getWritten();
+    }
+
+    private long insertFriendships(DatasetSpec spec, int[] userIds, Random random) {
+        if (userIds.length < 2) {
+            return 0;
+        }
+        int[] degrees = zipfCounts(userIds.length, spec.getFriendships(), spec.getFriendSkew(),
+                userIds.length - 1);
+        int[] byRank = shuffled(userIds, random);
+        PairWriter friendships = new PairWriter("friendships",
+                "INSERT INTO friendships (user_id, friend_id) VALUES (?, ?)", spec.getBatchSize());
+        for (int rank = 0; rank < byRank.length; rank++) {
+            int self = Arrays.binarySearch(userIds, byRank[rank]);
+            for (int index : pickDistinct(random, userIds.length, degrees[rank], self).toIntArray()) {
+                friendships.add(byRank[rank], userIds[index]);
+            }
+        }
+        friendships.flush();
+        return friendships.getWritten();
+    }
+
+    /**
+     * Picks {@code count} distinct indexes in {@code [0, bound)} other than {@code except}
+     * (Floyd's algorithm, so the cost depends on {@code count} only).
+     */
+    private static IntHashSet pickDistinct(Random random, int bound, int count, int except) {
+        int size = except >= 0 ? bound - 1 : bound;
+        IntHashSet picked = new IntHashSet(count);
+        for (int j = size - count; j < size; j++) {
+            int candidate = random.nextInt(j + 1);
+            picked.addInt(picked.containsInt(candidate) ? j : candidate);
+        }
+        if (except < 0) {
+            return picked;
+        }
+        IntHashSet shifted = new IntHashSet(count);
+        for (int index : picked.toIntArray()) {
+            shifted.addInt(index >= except ? index + 1 : index);
+        }
+        return shifted;
+    }
+
+    private static int[] shuffled(int[] ids, Random random) {
+        int[] copy = ids.clone();
+        for (int i = copy.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = copy[i];
+            copy[i] = copy[j];
+            copy[j] = tmp;
+        }
+        return copy;
+    }
+
+    private int maxId(String table) {
+        Integer max = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Integer.class);
+        return max == null ? 0 : max;
+    }
+
+    private int[] idsAfter(String table, int afterId) {
+        return jdbcTemplate.queryForList("SELECT id FROM " + table + " WHERE id > ? ORDER BY id",
+                        Integer.class, afterId).stream()
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    // пары int копим в массивах, а не в List<Object[]>, чтобы миллионы строк не упаковывались
+    private final class PairWriter {
+        private final String target;
+        private final String sql;
+        private final int[] first;
+        private final int[] second;
+        private int size;
+        private long written;
+
+        private PairWriter(String target, String sql, int batchSize) {
+            this.target = target;
+            this.sql = sql;
+            this.first = new int[batchSize];
+            this.second = new int[batchSize];
+        }
+
+        void add(int a, int b) {
+            first[size] = a;
+            second[size] = b;
+            size++;
+            if (size == first.length) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (size == 0) {
+                return;
+            }
+            int batch = size;
+            jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    ps.setInt(1, first[i]);
+                    ps.setInt(2, second[i]);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return batch;
+                }
+            });
+            if ((written + batch) / PROGRESS_STEP > written / PROGRESS_STEP) {
+                log.info("{}: {} rows written", target, written + batch);
+            }
+            written += batch;
+            size = 0;
+        }
+
+        long getWritten() {
+            return written;
+        }
+    }
+}
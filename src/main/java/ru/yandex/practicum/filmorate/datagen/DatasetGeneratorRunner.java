@@ -0,0 +1,68 @@
+package ru.yandex.practicum.filmorate.datagen;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.service.PopularityLeaderboard;
+
+/**
+ * Fills the database with a synthetic dataset on startup when the {@code datagen} profile is active,
+ * e.g. {@code java -jar filmorate.jar --spring.profiles.active=datagen --filmorate.datagen.likes=10000000}.
+ * Sizes are configured under {@code filmorate.datagen.*}, see {@code application-datagen.properties}.
+ */
+@Slf4j
+@Component
+@Profile("datagen")
+@RequiredArgsConstructor
+public class DatasetGeneratorRunner implements ApplicationRunner {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final PopularityLeaderboard leaderboard;
+
+    @Value("${filmorate.datagen.films:10000}")
+    private int films = 10_000;
+
+    @Value("${filmorate.datagen.users:10000}")
+    private int users = 10_000;
+
+    @Value("${filmorate.datagen.likes:1000000}")
+    private long likes = 1_000_000;
+
+    @Value("${filmorate.datagen.friendships:200000}")
+    private long friendships = 200_000;
+
+    @Value("${filmorate.datagen.like-skew:1.0}")
+    private double likeSkew = 1.0;
+
+    @Value("${filmorate.datagen.friend-skew:1.0}")
+    private double friendSkew = 1.0;
+
+    @Value("${filmorate.datagen.batch-size:5000}")
+    private int batchSize = 5_000;
+
+    @Value("${filmorate.datagen.seed:42}")
+    private long seed = 42;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        DatasetSpec spec = new DatasetSpec();
+        spec.setFilms(films);
+        spec.setUsers(users);
+        spec.setLikes(likes);
+        spec.setFriendships(friendships);
+        spec.setLikeSkew(likeSkew);
+        spec.setFriendSkew(friendSkew);
+        spec.setBatchSize(batchSize);
+        spec.setSeed(seed);
+        new DatasetGenerator(jdbcTemplate).generate(spec);
+        // лидерборд загрузился до генерации и про новые лайки не знает
+        int drifted = leaderboard.reconcile();
+        log.info("Popularity leaderboard picked up {} generated films", drifted);
+    }
+}
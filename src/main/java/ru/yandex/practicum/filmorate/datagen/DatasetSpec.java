@@ -0,0 +1,21 @@
+package ru.yandex.practicum.filmorate.datagen;
+
+import lombok.Data;
+
+/**
+ * Size and shape of a generated dataset. Likes per film follow a Zipf law with exponent
+ * {@code likeSkew} over film popularity rank; friends per user follow the same law with
+ * {@code friendSkew}, which gives a power-law degree distribution.
+ */
+@Data
+public class DatasetSpec {
+    private int films = 10_000;
+    private int users = 10_000;
+    private long likes = 1_000_000;
+    private long friendships = 200_000;
+    private double likeSkew = 1.0;
+    private double friendSkew = 1.0;
+    private int maxGenresPerFilm = 3;
+    private int batchSize = 5_000;
+    private long seed = 42;
+}
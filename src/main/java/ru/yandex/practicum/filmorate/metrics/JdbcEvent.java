@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One JDBC statement, from {@code execute*} until the statement is closed, so reading the result set is
+ * part of the duration. The stack trace points at the storage method that issued it.
+ * Emitted by {@link JdbcEventDataSource}.
+ */
+@Name("filmorate.Jdbc")
+@Label("JDBC Statement")
+@Category({"Filmorate", "JDBC"})
+@Description("SQL statement executed by a Filmorate storage")
+final class JdbcEvent extends Event {
+
+    @Label("SQL")
+    String sql;
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Rows")
+    @Description("Rows changed by an update; result set rows are not counted")
+    long rows;
+}
@@ -0,0 +1,121 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Hands out connections whose statements are recorded as {@link JdbcEvent}s while a JFR recording is running.
+ * Only connections and statements are proxied, result sets are returned as they are, so reading rows costs
+ * nothing extra; the event still lasts until the statement is closed and so covers the reading.
+ */
+public class JdbcEventDataSource extends DelegatingDataSource {
+
+    public JdbcEventDataSource(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection(), Connection.class, null);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password), Connection.class, null);
+    }
+
+    private static <T> T wrap(T target, Class<T> type, String sql) {
+        return type.cast(Proxy.newProxyInstance(JdbcEventDataSource.class.getClassLoader(),
+                new Class<?>[]{type}, new EventHandler(target, sql)));
+    }
+
+    private static final class EventHandler implements InvocationHandler {
+
+        private final Object target;
+        // для PreparedStatement текст запроса известен с prepareStatement, для Statement — с execute
+        private String sql;
+        private JdbcEvent event;
+
+        private EventHandler(Object target, String sql) {
+            this.target = target;
+            this.sql = sql;
+        }
+
+        @Override
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            boolean execute = target instanceof Statement && name.startsWith("execute");
+            if (execute) {
+                beginEvent(name, args);
+            }
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            } finally {
+                if (target instanceof Statement && name.equals("close")) {
+                    commitEvent();
+                }
+            }
+            if (execute) {
+                countUpdated(result);
+            }
+            Class<?> returnType = method.getReturnType();
+            if (target instanceof Connection && result != null && returnType.isInterface()
+                    && Statement.class.isAssignableFrom(returnType)) {
+                return wrap(result, (Class) returnType, name.startsWith("prepare") ? (String) args[0] : null);
+            }
+            return result;
+        }
+
+        // событие длится от execute до закрытия Statement, чтобы в него вошло и чтение строк
+        private void beginEvent(String operation, Object[] args) {
+            commitEvent();
+            if (args != null && args.length > 0 && args[0] instanceof String) {
+                sql = (String) args[0];
+            }
+            JdbcEvent jdbcEvent = new JdbcEvent();
+            if (!jdbcEvent.isEnabled()) {
+                return;
+            }
+            jdbcEvent.begin();
+            jdbcEvent.sql = sql;
+            jdbcEvent.operation = operation;
+            event = jdbcEvent;
+        }
+
+        private void countUpdated(Object result) {
+            if (event == null) {
+                return;
+            }
+            if (result instanceof Number) {
+                event.rows += Math.max(0, ((Number) result).longValue());
+            } else if (result instanceof int[]) {
+                for (int updated : (int[]) result) {
+                    event.rows += Math.max(0, updated);
+                }
+            } else if (result instanceof long[]) {
+                for (long updated : (long[]) result) {
+                    event.rows += Math.max(0, updated);
+                }
+            }
+        }
+
+        private void commitEvent() {
+            if (event != null) {
+                event.commit();
+                event = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the application's {@link DataSource} in a {@link JdbcEventDataSource}, so the recording kept by
+ * {@link SlowRequestDumper} shows the statements behind a slow request. Independent of the statement counting
+ * enabled by {@code filmorate.sql-stats.enabled}.
+ */
+@Component
+@ConditionalOnProperty(name = "filmorate.jfr.enabled", havingValue = "true")
+public class JdbcEventPostProcessor implements BeanPostProcessor {
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource && !(bean instanceof JdbcEventDataSource)) {
+            return new JdbcEventDataSource((DataSource) bean);
+        }
+        return bean;
+    }
+}
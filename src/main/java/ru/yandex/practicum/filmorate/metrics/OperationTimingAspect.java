@@ -0,0 +1,82 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Times every public method of storage and service beans. Timers are {@code filmorate.storage} and
+ * {@code filmorate.service}, tagged with the bean class, the method and the outcome
+ * ({@code success}, {@code client_error} for 4xx {@link ResponseStatusException}s, {@code error}).
+ * Caching storages are timed as well, so a cache hit shows up as a {@code CachingFilmStorage} call
+ * without a matching {@code FilmDbStorage} one. Only the database storages publish percentile histograms.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class OperationTimingAspect {
+
+    private final MeterRegistry meterRegistry;
+
+    // таймер регистрируется один раз на класс, метод и исход, дальше только поиск в map
+    private final ConcurrentMap<Operation, Timer> timers = new ConcurrentHashMap<>();
+
+    @Around("execution(public * ru.yandex.practicum.filmorate.storage..*.*(..))")
+    public Object timeStorage(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time("filmorate.storage", joinPoint);
+    }
+
+    @Around("execution(public * ru.yandex.practicum.filmorate.service..*.*(..))")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time("filmorate.service", joinPoint);
+    }
+
+    private Object time(String name, ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            outcome = isClientError(e) ? "client_error" : "error";
+            throw e;
+        } finally {
+            Operation operation = new Operation(name, joinPoint.getTarget().getClass(),
+                    joinPoint.getSignature().getName(), outcome);
+            Timer timer = timers.get(operation);
+            if (timer == null) {
+                timer = timers.computeIfAbsent(operation, this::register);
+            }
+            sample.stop(timer);
+        }
+    }
+
+    private Timer register(Operation operation) {
+        return Timer.builder(operation.getName())
+                .tag("class", operation.getType().getSimpleName())
+                .tag("method", operation.getMethod())
+                .tag("outcome", operation.getOutcome())
+                .publishPercentileHistogram(operation.getType().getSimpleName().endsWith("DbStorage"))
+                .register(meterRegistry);
+    }
+
+    private static boolean isClientError(Throwable e) {
+        return e instanceof ResponseStatusException && ((ResponseStatusException) e).getStatus().is4xxClientError();
+    }
+
+    @Data
+    private static final class Operation {
+        private final String name;
+        private final Class<?> type;
+        private final String method;
+        private final String outcome;
+    }
+}
@@ -0,0 +1,46 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+/**
+ * SQL statements and result set rows issued by the current thread since {@link #start()}. Filled by
+ * {@link QueryCountingDataSource}; outside of a started scope nothing is counted.
+ */
+public final class QueryCounter {
+
+    private static final ThreadLocal<QueryCounter> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+    private long rows;
+
+    private QueryCounter() {
+    }
+
+    public static QueryCounter start() {
+        QueryCounter counter = new QueryCounter();
+        CURRENT.set(counter);
+        return counter;
+    }
+
+    public static void stop() {
+        CURRENT.remove();
+    }
+
+    static QueryCounter current() {
+        return CURRENT.get();
+    }
+
+    void statement() {
+        statements++;
+    }
+
+    void row() {
+        rows++;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+}
@@ -0,0 +1,80 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Hands out connections whose statements and result sets report to the thread's {@link QueryCounter}.
+ * Every {@code execute*} call is one statement, a whole JDBC batch included, and every
+ * {@code ResultSet.next()} that moves to a row is one row. JFR events are emitted separately by
+ * {@link JdbcEventDataSource}.
+ */
+public class QueryCountingDataSource extends DelegatingDataSource {
+
+    public QueryCountingDataSource(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection(), Connection.class);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password), Connection.class);
+    }
+
+    private static <T> T wrap(T target, Class<T> type) {
+        return type.cast(Proxy.newProxyInstance(QueryCountingDataSource.class.getClassLoader(),
+                new Class<?>[]{type}, new CountingHandler(target)));
+    }
+
+    private static final class CountingHandler implements InvocationHandler {
+
+        private final Object target;
+
+        private CountingHandler(Object target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            QueryCounter counter = QueryCounter.current();
+            if (counter != null) {
+                if (target instanceof Statement && method.getName().startsWith("execute")) {
+                    counter.statement();
+                } else if (target instanceof ResultSet && method.getName().equals("next")
+                        && Boolean.TRUE.equals(result)) {
+                    counter.row();
+                }
+            }
+            return wrapResult(method.getReturnType(), result);
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private static Object wrapResult(Class<?> returnType, Object result) {
+            // оборачиваем только то, что порождает запросы и строки: Statement и его наследников, ResultSet
+            if (result == null || !returnType.isInterface()
+                    || !(Statement.class.isAssignableFrom(returnType) || returnType == ResultSet.class)) {
+                return result;
+            }
+            return wrap(result, (Class) returnType);
+        }
+    }
+}
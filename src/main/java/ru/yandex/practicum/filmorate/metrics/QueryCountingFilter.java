@@ -0,0 +1,159 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Counts SQL statements and rows behind each HTTP request. The counts go to the {@code X-SQL-Statements}
+ * and {@code X-SQL-Rows} response headers, to the {@code filmorate.http.sql.statements} and
+ * {@code filmorate.http.sql.rows} summaries tagged by method and route, and to a warning when a request
+ * issues more than {@code filmorate.sql-stats.warn-threshold} statements.
+ * Headers are written when the body starts, so for streamed exports they cover only the first part.
+ * Enabled together with {@link QueryCountingPostProcessor}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "filmorate.sql-stats.enabled", havingValue = "true")
+public class QueryCountingFilter extends OncePerRequestFilter {
+
+    public static final String STATEMENTS_HEADER = "X-SQL-Statements";
+    public static final String ROWS_HEADER = "X-SQL-Rows";
+
+    private final MeterRegistry meterRegistry;
+
+    private final int warnThreshold;
+
+    // сводки регистрируются один раз на метод и маршрут, дальше только поиск в map
+    private final ConcurrentMap<Route, RouteSummaries> routes = new ConcurrentHashMap<>();
+
+    public QueryCountingFilter(MeterRegistry meterRegistry,
+                               @Value("${filmorate.sql-stats.warn-threshold:20}") int warnThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.warnThreshold = warnThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        QueryCounter counter = QueryCounter.start();
+        CountHeadersResponse countedResponse = new CountHeadersResponse(response, counter);
+        try {
+            chain.doFilter(request, countedResponse);
+        } finally {
+            QueryCounter.stop();
+            countedResponse.writeHeaders();
+            record(request, counter);
+        }
+    }
+
+    private void record(HttpServletRequest request, QueryCounter counter) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        Route route = new Route(request.getMethod(), pattern != null ? pattern.toString() : "UNMAPPED");
+        RouteSummaries summaries = routes.get(route);
+        if (summaries == null) {
+            summaries = routes.computeIfAbsent(route, this::register);
+        }
+        summaries.statements.record(counter.getStatements());
+        summaries.rows.record(counter.getRows());
+        if (counter.getStatements() > warnThreshold) {
+            log.warn("{} {} issued {} SQL statements reading {} rows, more than the threshold of {}",
+                    request.getMethod(), request.getRequestURI(), counter.getStatements(), counter.getRows(),
+                    warnThreshold);
+        }
+    }
+
+    private RouteSummaries register(Route route) {
+        return new RouteSummaries(summary("filmorate.http.sql.statements", route),
+                summary("filmorate.http.sql.rows", route));
+    }
+
+    private DistributionSummary summary(String name, Route route) {
+        return DistributionSummary.builder(name)
+                .tag("method", route.getMethod())
+                .tag("uri", route.getUri())
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @Data
+    private static final class Route {
+        private final String method;
+        private final String uri;
+    }
+
+    @RequiredArgsConstructor
+    private static final class RouteSummaries {
+        private final DistributionSummary statements;
+        private final DistributionSummary rows;
+    }
+
+    // заголовки нельзя поставить после того, как ответ начал отправляться, поэтому пишем их перед телом
+    private static final class CountHeadersResponse extends HttpServletResponseWrapper {
+
+        private final QueryCounter counter;
+        private boolean headersWritten;
+
+        private CountHeadersResponse(HttpServletResponse response, QueryCounter counter) {
+            super(response);
+            this.counter = counter;
+        }
+
+        void writeHeaders() {
+            if (headersWritten || isCommitted()) {
+                return;
+            }
+            headersWritten = true;
+            setHeader(STATEMENTS_HEADER, String.valueOf(counter.getStatements()));
+            setHeader(ROWS_HEADER, String.valueOf(counter.getRows()));
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeHeaders();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeHeaders();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeaders();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeHeaders();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeHeaders();
+            super.sendError(sc, msg);
+        }
+    }
+}
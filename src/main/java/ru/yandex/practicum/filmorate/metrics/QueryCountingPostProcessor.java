@@ -0,0 +1,25 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the application's {@link DataSource} in a {@link QueryCountingDataSource}. Off unless
+ * {@code filmorate.sql-stats.enabled} is set: every JDBC call, {@code ResultSet.next()} included, then goes
+ * through a reflective proxy.
+ */
+@Component
+@ConditionalOnProperty(name = "filmorate.sql-stats.enabled", havingValue = "true")
+public class QueryCountingPostProcessor implements BeanPostProcessor {
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource && !(bean instanceof QueryCountingDataSource)) {
+            return new QueryCountingDataSource((DataSource) bean);
+        }
+        return bean;
+    }
+}
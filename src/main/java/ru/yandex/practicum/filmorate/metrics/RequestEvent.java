@@ -0,0 +1,32 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("filmorate.HttpRequest")
+@Label("HTTP Request")
+@Category({"Filmorate", "HTTP"})
+@Description("HTTP request handled by a Filmorate controller")
+@StackTrace(false)
+final class RequestEvent extends Event {
+
+    @Label("Method")
+    String method;
+
+    @Label("Endpoint")
+    @Description("Route template, e.g. /films/{id}")
+    String endpoint;
+
+    @Label("URI")
+    String uri;
+
+    @Label("Path Variables")
+    String ids;
+
+    @Label("Status")
+    int status;
+}
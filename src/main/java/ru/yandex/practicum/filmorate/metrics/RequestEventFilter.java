@@ -0,0 +1,59 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Records every HTTP request as a {@link RequestEvent} and hands requests slower than
+ * {@code filmorate.jfr.dump-threshold} to {@link SlowRequestDumper}, when it is enabled.
+ */
+@Component
+public class RequestEventFilter extends OncePerRequestFilter {
+
+    private final ObjectProvider<SlowRequestDumper> dumper;
+
+    private final long dumpThresholdNanos;
+
+    public RequestEventFilter(ObjectProvider<SlowRequestDumper> dumper,
+                              @Value("${filmorate.jfr.dump-threshold:2s}") Duration dumpThreshold) {
+        this.dumper = dumper;
+        this.dumpThresholdNanos = dumpThreshold.toNanos();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestEvent event = new RequestEvent();
+        event.begin();
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            if (event.shouldCommit()) {
+                Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                Object ids = request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+                event.method = request.getMethod();
+                event.endpoint = pattern != null ? pattern.toString() : "UNMAPPED";
+                event.uri = request.getRequestURI();
+                event.ids = ids != null ? ids.toString() : null;
+                event.status = response.getStatus();
+                event.commit();
+            }
+            if (elapsed > dumpThresholdNanos) {
+                dumper.ifAvailable(d -> d.slowRequest(request.getMethod() + " " + request.getRequestURI(),
+                        Duration.ofNanos(elapsed)));
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps a continuous JFR recording with the JDK's {@code default} settings plus the Filmorate events,
+ * limited to {@code filmorate.jfr.max-age}, and dumps it to {@code filmorate.jfr.dump-dir} when a request
+ * is slower than {@code filmorate.jfr.dump-threshold}. Dumps are at least {@code filmorate.jfr.dump-interval}
+ * apart and are written off the request thread. The files open in JDK Mission Control or with {@code jfr print}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "filmorate.jfr.enabled", havingValue = "true")
+public class SlowRequestDumper implements DisposableBean {
+
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final Path dumpDir;
+
+    private final long dumpIntervalNanos;
+
+    private final Recording recording;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "jfr-dump");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicLong lastDump = new AtomicLong();
+
+    public SlowRequestDumper(@Value("${filmorate.jfr.dump-dir:jfr}") String dumpDir,
+                             @Value("${filmorate.jfr.dump-interval:5m}") Duration dumpInterval,
+                             @Value("${filmorate.jfr.max-age:10m}") Duration maxAge) throws IOException, ParseException {
+        this.dumpDir = Paths.get(dumpDir);
+        this.dumpIntervalNanos = dumpInterval.toNanos();
+        // первый дамп разрешён сразу после старта
+        lastDump.set(System.nanoTime() - dumpIntervalNanos);
+        recording = new Recording(Configuration.getConfiguration("default"));
+        recording.setName("filmorate");
+        recording.setToDisk(true);
+        recording.setMaxAge(maxAge);
+        recording.enable(RequestEvent.class);
+        recording.enable(JdbcEvent.class);
+        recording.start();
+        log.info("JFR recording started, slow request dumps go to {}", this.dumpDir.toAbsolutePath());
+    }
+
+    public void slowRequest(String request, Duration duration) {
+        long now = System.nanoTime();
+        long last = lastDump.get();
+        if (now - last < dumpIntervalNanos || !lastDump.compareAndSet(last, now)) {
+            return;
+        }
+        Path file = dumpDir.resolve("filmorate-" + LocalDateTime.now().format(FILE_TIME) + ".jfr");
+        executor.execute(() -> dump(file, request, duration));
+    }
+
+    private void dump(Path file, String request, Duration duration) {
+        try {
+            Files.createDirectories(dumpDir);
+            recording.dump(file);
+            log.warn("{} took {} ms, JFR recording dumped to {}", request, duration.toMillis(), file);
+        } catch (IOException | IllegalStateException e) {
+            log.error("Failed to dump JFR recording to {}", file, e);
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        executor.shutdown();
+        // не закрываем запись посреди дампа
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+        recording.close();
+    }
+}
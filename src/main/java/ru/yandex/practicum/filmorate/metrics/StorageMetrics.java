@@ -0,0 +1,24 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Meters that storages update directly from their extractors.
+ */
+public final class StorageMetrics {
+
+    public static final String ROWS_READ = "filmorate.storage.rows.read";
+
+    private StorageMetrics() {
+    }
+
+    /**
+     * Counter of result set rows walked by the named extractor, to compare JOIN and MULTI_QUERY hydration.
+     */
+    public static Counter rowsRead(MeterRegistry meterRegistry, String query) {
+        return Counter.builder(ROWS_READ)
+                .tag("query", query)
+                .register(meterRegistry);
+    }
+}
@@ -1,5 +1,7 @@
 package ru.yandex.practicum.filmorate.model;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -10,12 +12,11 @@ import javax.validation.constraints.Positive;
 import javax.validation.constraints.Size;
 import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
 @Data
 @NoArgsConstructor
+@JsonFilter("film")
 public class Film {
     private Integer id;
     @NotBlank(message = "Name must not be blank")
@@ -28,6 +29,8 @@ public class Film {
     @Positive(message = "Duration must be positive")
     private int duration;
     private Mpa mpa;
-    private Set<Integer> likes = new HashSet<>();
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private IntHashSet likes;
+    private int likeCount;
     private List<Genre> genres = new ArrayList<>();
 }
\ No newline at end of file
@@ -0,0 +1,33 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Optional;
+
+/**
+ * Film properties a client can ask for with {@code ?fields=}. Names match the JSON property names.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum FilmField {
+    ID("id"),
+    NAME("name"),
+    DESCRIPTION("description"),
+    RELEASE_DATE("releaseDate"),
+    DURATION("duration"),
+    MPA("mpa"),
+    GENRES("genres"),
+    LIKE_COUNT("likeCount");
+
+    private final String jsonName;
+
+    public static Optional<FilmField> fromJsonName(String jsonName) {
+        for (FilmField field : values()) {
+            if (field.jsonName.equals(jsonName)) {
+                return Optional.of(field);
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -1,16 +1,18 @@
 package ru.yandex.practicum.filmorate.model;
 
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import lombok.AllArgsConstructor;
+import lombok.Value;
 
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.Size;
 
-@Data
-@NoArgsConstructor
+// неизменяемый, поэтому один экземпляр из справочника можно отдавать во все фильмы
+@Value
+@AllArgsConstructor(onConstructor_ = @JsonCreator)
 public class Genre {
-    private Integer id;
+    Integer id;
     @NotBlank(message = "Genre name must not be blank")
     @Size(max = 40, message = "Genre name must be less than 40 characters")
-    private String name;
+    String name;
 }
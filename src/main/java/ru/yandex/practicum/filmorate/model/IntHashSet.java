@@ -0,0 +1,305 @@
+package ru.yandex.practicum.filmorate.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Set of ints stored in an open-addressing table with linear probing, so entries are not boxed and
+ * need no hash nodes: the table is kept at most 75% full, so an id takes about 5-11 bytes instead of ~40
+ * in a {@code HashSet<Integer>}. Iteration follows the table and has no particular order; JSON output is
+ * sorted so responses stay stable.
+ */
+@JsonSerialize(using = IntHashSet.Serializer.class)
+@JsonDeserialize(using = IntHashSet.Deserializer.class)
+public class IntHashSet extends AbstractSet<Integer> {
+
+    private static final int EMPTY = 0;
+    private static final int MIN_CAPACITY = 4;
+
+    // ноль занят под пустую ячейку, поэтому хранится отдельным флагом
+    private int[] table;
+    private boolean containsZero;
+    private int size;
+
+    public IntHashSet() {
+        this(0);
+    }
+
+    public IntHashSet(int expectedSize) {
+        table = new int[capacityFor(expectedSize)];
+    }
+
+    public static IntHashSet of(int... values) {
+        IntHashSet set = new IntHashSet(values.length);
+        for (int value : values) {
+            set.addInt(value);
+        }
+        return set;
+    }
+
+    public static IntHashSet copyOf(Collection<Integer> values) {
+        if (values instanceof IntHashSet) {
+            IntHashSet source = (IntHashSet) values;
+            IntHashSet set = new IntHashSet();
+            set.table = source.table.clone();
+            set.containsZero = source.containsZero;
+            set.size = source.size;
+            return set;
+        }
+        IntHashSet set = new IntHashSet(values.size());
+        for (Integer value : values) {
+            set.addInt(value);
+        }
+        return set;
+    }
+
+    public boolean addInt(int value) {
+        if (value == EMPTY) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        int slot = slotOf(value);
+        if (table[slot] == value) {
+            return false;
+        }
+        table[slot] = value;
+        size++;
+        if (size * 4 > table.length * 3) {
+            resize(table.length * 2);
+        }
+        return true;
+    }
+
+    public boolean containsInt(int value) {
+        if (value == EMPTY) {
+            return containsZero;
+        }
+        return table[slotOf(value)] == value;
+    }
+
+    public boolean removeInt(int value) {
+        if (value == EMPTY) {
+            if (!containsZero) {
+                return false;
+            }
+            containsZero = false;
+            size--;
+            return true;
+        }
+        int slot = slotOf(value);
+        if (table[slot] != value) {
+            return false;
+        }
+        // сдвигаем хвост цепочки назад, чтобы поиск не обрывался на дыре
+        int mask = table.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (table[next] != EMPTY) {
+            int home = hash(table[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                table[hole] = table[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        table[hole] = EMPTY;
+        size--;
+        return true;
+    }
+
+    /**
+     * Returns the elements as a new array, in no particular order.
+     */
+    public int[] toIntArray() {
+        int[] values = new int[size];
+        int i = 0;
+        if (containsZero) {
+            values[i++] = 0;
+        }
+        for (int value : table) {
+            if (value != EMPTY) {
+                values[i++] = value;
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Integer && containsInt((Integer) o);
+    }
+
+    @Override
+    public boolean add(Integer value) {
+        return addInt(value);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return o instanceof Integer && removeInt((Integer) o);
+    }
+
+    @Override
+    public void clear() {
+        table = new int[MIN_CAPACITY];
+        containsZero = false;
+        size = 0;
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        return new Iterator<>() {
+            private static final int NONE = -1;
+            private static final int ZERO = -2;
+
+            private final int[] slots = table;
+            private final int mask = slots.length - 1;
+            // начинаем с пустой ячейки: сдвиг при удалении не переходит через неё, поэтому после
+            // remove() элементы переезжают только в ещё не пройденные ячейки
+            private final int start = emptySlot();
+            private int offset = 1;
+            private boolean zeroPending = containsZero;
+            private int last = NONE;
+
+            @Override
+            public boolean hasNext() {
+                if (zeroPending) {
+                    return true;
+                }
+                while (offset < slots.length && slots[(start + offset) & mask] == EMPTY) {
+                    offset++;
+                }
+                return offset < slots.length;
+            }
+
+            @Override
+            public Integer next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                if (zeroPending) {
+                    zeroPending = false;
+                    last = ZERO;
+                    return 0;
+                }
+                last = (start + offset++) & mask;
+                return slots[last];
+            }
+
+            @Override
+            public void remove() {
+                if (last == NONE) {
+                    throw new IllegalStateException();
+                }
+                if (last == ZERO) {
+                    removeInt(EMPTY);
+                } else {
+                    removeInt(slots[last]);
+                    // в освободившуюся ячейку мог сдвинуться следующий элемент цепочки
+                    offset--;
+                }
+                last = NONE;
+            }
+        };
+    }
+
+    private int emptySlot() {
+        int slot = 0;
+        while (table[slot] != EMPTY) {
+            slot++;
+        }
+        return slot;
+    }
+
+    private int slotOf(int value) {
+        int mask = table.length - 1;
+        int slot = hash(value) & mask;
+        while (table[slot] != EMPTY && table[slot] != value) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize(int capacity) {
+        int[] old = table;
+        table = new int[capacity];
+        for (int value : old) {
+            if (value != EMPTY) {
+                table[slotOf(value)] = value;
+            }
+        }
+    }
+
+    private static int hash(int value) {
+        // id идут подряд, перемешиваем биты, чтобы не получать длинные цепочки
+        int h = value * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * 3 < expectedSize * 4) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    public static class Serializer extends StdSerializer<IntHashSet> {
+
+        public Serializer() {
+            super(IntHashSet.class);
+        }
+
+        @Override
+        public void serialize(IntHashSet value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            int[] values = value.toIntArray();
+            Arrays.sort(values);
+            gen.writeArray(values, 0, values.length);
+        }
+    }
+
+    public static class Deserializer extends StdDeserializer<IntHashSet> {
+
+        public Deserializer() {
+            super(IntHashSet.class);
+        }
+
+        @Override
+        public IntHashSet deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (!p.isExpectedStartArrayToken()) {
+                return (IntHashSet) ctxt.handleUnexpectedToken(IntHashSet.class, p);
+            }
+            IntHashSet set = new IntHashSet();
+            JsonToken token;
+            while ((token = p.nextToken()) != JsonToken.END_ARRAY) {
+                if (token != JsonToken.VALUE_NULL) {
+                    set.addInt(p.getValueAsInt());
+                }
+            }
+            return set;
+        }
+    }
+}
@@ -1,18 +1,18 @@
 package ru.yandex.practicum.filmorate.model;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
 import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.Value;
 
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.Size;
 
-@Data
-@AllArgsConstructor
-@NoArgsConstructor
+// неизменяемый, поэтому один экземпляр из справочника можно отдавать во все фильмы
+@Value
+@AllArgsConstructor(onConstructor_ = @JsonCreator)
 public class Mpa {
-    private Integer id;
+    Integer id;
     @NotBlank(message = "MPA name must not be blank")
     @Size(max = 6, message = "MPA name must be less than 6 characters")
-    private String name;
+    String name;
 }
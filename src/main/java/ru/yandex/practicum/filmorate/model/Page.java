@@ -0,0 +1,20 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of an id-ordered listing. {@code nextAfterId} is null on the last page.
+ */
+@Data
+public class Page<T> {
+    private final List<T> items;
+    private final Integer nextAfterId;
+
+    public static <T> Page<T> of(List<T> items, int limit, Function<T, Integer> idOf) {
+        Integer nextAfterId = items.size() < limit ? null : idOf.apply(items.get(items.size() - 1));
+        return new Page<>(items, nextAfterId);
+    }
+}
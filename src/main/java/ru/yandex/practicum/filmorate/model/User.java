@@ -1,5 +1,6 @@
 package ru.yandex.practicum.filmorate.model;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -9,11 +10,10 @@ import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.Past;
 import javax.validation.constraints.Pattern;
 import java.time.LocalDate;
-import java.util.HashSet;
-import java.util.Set;
 
 @Data
 @NoArgsConstructor
+@JsonFilter("user")
 public class User {
     private Integer id;
     @NotBlank(message = "Email must not be blank")
@@ -26,5 +26,5 @@ public class User {
     @Past(message = "Birthday must be in the past")
     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
     private LocalDate birthday;
-    private Set<Integer> friends = new HashSet<>();
+    private IntHashSet friends = new IntHashSet();
 }
\ No newline at end of file
@@ -0,0 +1,31 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Optional;
+
+/**
+ * User properties a client can ask for with {@code ?fields=}. Names match the JSON property names.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum UserField {
+    ID("id"),
+    EMAIL("email"),
+    LOGIN("login"),
+    NAME("name"),
+    BIRTHDAY("birthday"),
+    FRIENDS("friends");
+
+    private final String jsonName;
+
+    public static Optional<UserField> fromJsonName(String jsonName) {
+        for (UserField field : values()) {
+            if (field.jsonName.equals(jsonName)) {
+                return Optional.of(field);
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,21 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * User row without the nested friend set, used for friend lists.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserSummary {
+    private Integer id;
+    private String email;
+    private String login;
+    private String name;
+    private LocalDate birthday;
+}
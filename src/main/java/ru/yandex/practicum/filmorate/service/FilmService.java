@@ -1,29 +1,60 @@
 package ru.yandex.practicum.filmorate.service;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 import ru.yandex.practicum.filmorate.model.Film;
-import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.FilmField;
+import ru.yandex.practicum.filmorate.model.IntHashSet;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.storage.interfaces.FilmStorage;
 
 import java.time.LocalDate;
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class FilmService {
 
     private final FilmStorage filmStorage;
 
     private final UserService userService;
 
+    private final PopularityLeaderboard leaderboard;
+
+    // одновременные одинаковые чтения горячего фильма или топа идут в хранилище одним запросом
+    private final SingleFlight<Integer, Film> filmById;
+
+    private final SingleFlight<List<Integer>, List<Film>> popularFilms;
+
+    @Value("${filmorate.pagination.default-limit:100}")
+    private int defaultPageLimit = 100;
+
+    @Value("${filmorate.pagination.max-limit:1000}")
+    private int maxPageLimit = 1000;
+
+    public FilmService(FilmStorage filmStorage, UserService userService, PopularityLeaderboard leaderboard,
+                       MeterRegistry meterRegistry) {
+        this.filmStorage = filmStorage;
+        this.userService = userService;
+        this.leaderboard = leaderboard;
+        this.filmById = new SingleFlight<>("film_by_id", meterRegistry);
+        this.popularFilms = new SingleFlight<>("popular_films", meterRegistry);
+    }
+
     public Film createFilm(Film film) {
         if (film.getId() != null) {
             log.warn("Attempt to create film with an existing ID: {}", film.getId());
@@ -34,24 +65,41 @@ public class FilmService {
                     "The release date cannot be earlier than December 28, 1895.");
         }
         Film createdFilm = filmStorage.create(film);
+        leaderboard.put(createdFilm.getId(), createdFilm.getLikeCount());
+        popularFilms.forgetAll();
         log.info("Film with ID {} has been created.", film.getId());
         return createdFilm;
     }
 
-    public Film findFilmById(int id) {
-        Film film = filmStorage.findById(id);
+    public Film findFilmById(int id, Set<String> include) {
+        boolean withLikes = includesLikes(include);
+        Film film = filmById.execute(id, () -> filmStorage.findById(id));
         if (film == null) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Film not found");
         }
-        return film;
+        return withLikes ? withLikes(List.of(film)).get(0) : film;
+    }
+
+    public Page<Film> findFilmsPage(int afterId, Integer limit, Set<String> include, Set<String> fields) {
+        boolean withLikes = includesLikes(include);
+        Set<FilmField> filmFields = resolveFields(fields);
+        int pageLimit = resolvePageLimit(afterId, limit);
+        List<Film> films = filmStorage.findPage(afterId, pageLimit, filmFields);
+        return Page.of(withLikes ? withLikes(films) : films, pageLimit, Film::getId);
     }
 
-    public List<Film> findAllFilms() {
-        return filmStorage.findAll();
+    public Page<Integer> findFilmLikes(int id, int afterId, Integer limit) {
+        int pageLimit = resolvePageLimit(afterId, limit);
+        checkFilmExists(id);
+        return Page.of(filmStorage.findLikesPage(id, afterId, pageLimit), pageLimit, Function.identity());
+    }
+
+    public void exportFilms(Consumer<Film> action) {
+        filmStorage.streamAll(action);
     }
 
     public Film updateFilm(Film newFilm) {
-        if (filmStorage.findById(newFilm.getId()) == null) {
+        if (!filmStorage.existsById(newFilm.getId())) {
             log.warn("Attempt to update a film with a non-existent ID: {}", newFilm.getId());
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Film not found");
         }
@@ -60,59 +108,124 @@ public class FilmService {
                     "The release date cannot be earlier than December 28, 1895.");
         }
         Film updatedFilm = filmStorage.update(newFilm.getId(), newFilm);
+        forgetInFlight(newFilm.getId());
         log.info("Film with ID {} has been updated.", newFilm.getId());
         return updatedFilm;
     }
 
     public boolean deleteFilm(int id) {
-        if (filmStorage.findById(id) == null) {
+        if (!filmStorage.existsById(id)) {
             log.warn("Attempt to delete non-existing film with ID: {}", id);
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Film not found");
         }
-        return filmStorage.delete(id);
+        boolean deleted = filmStorage.delete(id);
+        leaderboard.remove(id);
+        forgetInFlight(id);
+        return deleted;
     }
 
     public boolean addLike(int id, int userId) {
-        User user = userService.findUserById(userId);
-        Film film = findFilmById(id);
-        if (film == null || user == null) {
-            log.warn("Attempt to contact a user or a film that does not exist");
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User or Film not found.");
-        }
-        Set<Integer> likes = film.getLikes();
-        if (!likes.contains(user.getId())) {
-            likes.add(user.getId());
-            log.info("Like added for user {} to film {}", user.getId(), film.getId());
-            filmStorage.update(film.getId(), film);
+        userService.checkUserExists(userId);
+        checkFilmExists(id);
+        if (filmStorage.addLike(id, userId)) {
+            leaderboard.increment(id);
+            forgetInFlight(id);
+            log.info("Like added for user {} to film {}", userId, id);
         } else {
-            log.info("User {} already liked film {}", user.getId(), film.getId());
+            log.info("User {} already liked film {}", userId, id);
         }
         return true;
     }
 
     public boolean deleteLike(int id, int userId) {
-        User user = userService.findUserById(userId);
-        Film film = findFilmById(id);
-        if (film == null || user == null) {
-            log.warn("Attempt to contact a user or a film that does not exist");
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User or Film not found.");
-        }
-        Set<Integer> likes = film.getLikes();
-        if (likes.contains(user.getId())) {
-            likes.remove(user.getId());
-            log.info("Like deleted for user {} to film {}", user.getId(), film.getId());
-            filmStorage.update(film.getId(), film);
+        userService.checkUserExists(userId);
+        checkFilmExists(id);
+        if (filmStorage.removeLike(id, userId)) {
+            leaderboard.decrement(id);
+            forgetInFlight(id);
+            log.info("Like deleted for user {} to film {}", userId, id);
             return true;
         } else {
-            log.info("User {} did not like the film {}", user.getId(), film.getId());
+            log.info("User {} did not like the film {}", userId, id);
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Like was not deleted.");
         }
     }
 
-    public List<Film> findPopularFilms(int count) {
-        return filmStorage.findAll().stream()
-                .sorted(Comparator.comparingInt((Film film) -> film.getLikes().size()).reversed())
-                .limit(count)
-                .collect(Collectors.toList());
+    public List<Film> findPopularFilms(int count, Integer genreId, Integer year, Set<String> include) {
+        if (count <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Count must be positive.");
+        }
+        boolean withLikes = includesLikes(include);
+        List<Film> films = popularFilms.execute(Arrays.asList(count, genreId, year),
+                () -> genreId == null && year == null
+                        ? filmStorage.findByIds(leaderboard.top(count))
+                        : filmStorage.findPopular(count, genreId, year));
+        return withLikes ? withLikes(films) : films;
+    }
+
+    private int resolvePageLimit(int afterId, Integer limit) {
+        if (afterId < 0 || (limit != null && limit <= 0)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "afterId must not be negative and limit must be positive.");
+        }
+        return limit == null ? defaultPageLimit : Math.min(limit, maxPageLimit);
+    }
+
+    private static boolean includesLikes(Set<String> include) {
+        if (include == null || include.isEmpty()) {
+            return false;
+        }
+        Set<String> unknown = new HashSet<>(include);
+        unknown.remove("likes");
+        if (!unknown.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown include: " + unknown);
+        }
+        return true;
+    }
+
+    private static Set<FilmField> resolveFields(Set<String> names) {
+        if (names == null || names.isEmpty()) {
+            return EnumSet.allOf(FilmField.class);
+        }
+        Set<FilmField> fields = EnumSet.of(FilmField.ID);
+        for (String name : names) {
+            fields.add(FilmField.fromJsonName(name).orElseThrow(() ->
+                    new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown field: " + name)));
+        }
+        return fields;
+    }
+
+    // фильмы могут лежать в кэше или достаться сразу нескольким объединённым вызовам, поэтому лайки добавляем в копии
+    private List<Film> withLikes(List<Film> films) {
+        Collection<Integer> ids = films.stream().map(Film::getId).collect(Collectors.toList());
+        Map<Integer, IntHashSet> likes = filmStorage.findLikes(ids);
+        List<Film> result = new ArrayList<>(films.size());
+        for (Film film : films) {
+            Film copy = new Film();
+            copy.setId(film.getId());
+            copy.setName(film.getName());
+            copy.setDescription(film.getDescription());
+            copy.setReleaseDate(film.getReleaseDate());
+            copy.setDuration(film.getDuration());
+            copy.setMpa(film.getMpa());
+            copy.setGenres(film.getGenres());
+            copy.setLikeCount(film.getLikeCount());
+            copy.setLikes(likes.getOrDefault(film.getId(), new IntHashSet()));
+            result.add(copy);
+        }
+        return result;
+    }
+
+    // чтения, начатые до записи, могут вернуть старые данные: после записи к ним больше не присоединяемся
+    private void forgetInFlight(int id) {
+        filmById.forget(id);
+        popularFilms.forgetAll();
+    }
+
+    private void checkFilmExists(int id) {
+        if (!filmStorage.existsById(id)) {
+            log.warn("Attempt to contact a film that does not exist: Film ID {}", id);
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Film not found");
+        }
     }
 }
@@ -40,7 +40,7 @@ public class GenreService {
             throw new ResponseStatusException(HttpStatus.CONFLICT, "Genre with given ID already exists");
         }
         Genre  createdGenre = genreStorage.create(genre);
-        log.info("Genre with ID {} has been created.", genre.getId());
+        log.info("Genre with ID {} has been created.", createdGenre.getId());
         return createdGenre;
     }
 
@@ -40,7 +40,7 @@ public class MpaService {
             throw new ResponseStatusException(HttpStatus.CONFLICT, "Rate with given ID already exists");
         }
         Mpa  createdMpa = mpaStorage.create(mpa);
-        log.info("Rate with ID {} has been created.", mpa.getId());
+        log.info("Rate with ID {} has been created.", createdMpa.getId());
         return createdMpa;
     }
 
@@ -0,0 +1,150 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.interfaces.FilmStorage;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * In-memory ranking of films by like count (most liked first, then by id), kept in step with
+ * like changes so unfiltered {@code /films/popular} requests don't have to rank in the database.
+ * Writers for the same film are serialized by {@link ConcurrentHashMap#compute}; readers walk the
+ * skip list without locking.
+ */
+@Slf4j
+@Component
+public class PopularityLeaderboard {
+
+    private static final Comparator<Rank> ORDER = Comparator.comparingInt(Rank::getLikes).reversed()
+            .thenComparingInt(Rank::getFilmId);
+
+    private final FilmStorage filmStorage;
+
+    private final ConcurrentHashMap<Integer, Integer> likes = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Rank> ranking = new ConcurrentSkipListSet<>(ORDER);
+
+    public PopularityLeaderboard(FilmStorage filmStorage) {
+        this.filmStorage = filmStorage;
+    }
+
+    @PostConstruct
+    public void load() {
+        Map<Integer, Integer> counts = filmStorage.findLikeCounts();
+        counts.forEach(this::put);
+        log.info("Popularity leaderboard loaded with {} films", counts.size());
+    }
+
+    public List<Integer> top(int count) {
+        List<Integer> ids = new ArrayList<>(Math.min(count, likes.size()));
+        Set<Integer> seen = new HashSet<>();
+        for (Rank rank : ranking) {
+            if (ids.size() == count) {
+                break;
+            }
+            // во время обновления фильм на мгновение может встретиться дважды
+            if (seen.add(rank.getFilmId())) {
+                ids.add(rank.getFilmId());
+            }
+        }
+        return ids;
+    }
+
+    public void put(int filmId, int likeCount) {
+        likes.compute(filmId, (id, old) -> move(id, old, likeCount));
+    }
+
+    public void increment(int filmId) {
+        likes.compute(filmId, (id, old) -> move(id, old, old == null ? 1 : old + 1));
+    }
+
+    public void decrement(int filmId) {
+        likes.computeIfPresent(filmId, (id, old) -> move(id, old, Math.max(old - 1, 0)));
+    }
+
+    public void remove(int filmId) {
+        likes.computeIfPresent(filmId, (id, old) -> {
+            ranking.remove(new Rank(id, old));
+            return null;
+        });
+    }
+
+    /**
+     * Compares the ranking with like counts in the database and repairs films that drifted,
+     * e.g. after likes were removed by a user deletion. A film that changed while the database was
+     * being read is left alone; the next pass will look at it again.
+     */
+    @Scheduled(fixedDelayString = "${filmorate.leaderboard.reconcile-interval-ms:300000}",
+            initialDelayString = "${filmorate.leaderboard.reconcile-interval-ms:300000}")
+    public int reconcile() {
+        Map<Integer, Integer> before = new HashMap<>(likes);
+        Map<Integer, Integer> actual = filmStorage.findLikeCounts();
+
+        Set<Integer> filmIds = new HashSet<>(before.keySet());
+        filmIds.addAll(actual.keySet());
+        int drifted = 0;
+        for (Integer filmId : filmIds) {
+            Integer expected = before.get(filmId);
+            Integer stored = actual.get(filmId);
+            if (expected != null && expected.equals(stored)) {
+                continue;
+            }
+            boolean[] repaired = new boolean[1];
+            likes.compute(filmId, (id, current) -> {
+                if (current == null ? expected != null : !current.equals(expected)) {
+                    return current;
+                }
+                repaired[0] = true;
+                if (stored == null) {
+                    ranking.remove(new Rank(id, current));
+                    return null;
+                }
+                return move(id, current, stored);
+            });
+            if (repaired[0]) {
+                drifted++;
+            }
+        }
+        if (drifted > 0) {
+            log.warn("Popularity leaderboard drifted from the database for {} films, repaired", drifted);
+        }
+        return drifted;
+    }
+
+    private Integer move(int filmId, Integer oldCount, int newCount) {
+        // сначала добавляем новую позицию, чтобы читатель не потерял фильм между двумя операциями
+        ranking.add(new Rank(filmId, newCount));
+        if (oldCount != null && oldCount != newCount) {
+            ranking.remove(new Rank(filmId, oldCount));
+        }
+        return newCount;
+    }
+
+    private static final class Rank {
+        private final int filmId;
+        private final int likes;
+
+        private Rank(int filmId, int likes) {
+            this.filmId = filmId;
+            this.likes = likes;
+        }
+
+        int getFilmId() {
+            return filmId;
+        }
+
+        int getLikes() {
+            return likes;
+        }
+    }
+}
@@ -2,14 +2,21 @@ package ru.yandex.practicum.filmorate.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserField;
+import ru.yandex.practicum.filmorate.model.UserSummary;
+import ru.yandex.practicum.filmorate.storage.interfaces.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.interfaces.UserStorage;
 
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Slf4j
 @Service
@@ -18,6 +25,16 @@ public class UserService {
 
     private final UserStorage userStorage;
 
+    private final FilmStorage filmStorage;
+
+    private final PopularityLeaderboard leaderboard;
+
+    @Value("${filmorate.pagination.default-limit:100}")
+    private int defaultPageLimit = 100;
+
+    @Value("${filmorate.pagination.max-limit:1000}")
+    private int maxPageLimit = 1000;
+
     public User createUser(User user) {
         if (user.getId() != null) {
             log.warn("Attempt to create user with an existing ID: {}", user.getId());
@@ -41,13 +58,26 @@ public class UserService {
         return user;
     }
 
-    public List<User> findAllUsers() {
-        return userStorage.findAll();
+    public void checkUserExists(int id) {
+        if (!userStorage.existsById(id)) {
+            log.warn("Attempt to contact a user that does not exist: User ID {}", id);
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
+        }
+    }
+
+    public Page<User> findUsersPage(int afterId, Integer limit, Set<String> fields) {
+        Set<UserField> userFields = resolveFields(fields);
+        int pageLimit = resolvePageLimit(afterId, limit);
+        return Page.of(userStorage.findPage(afterId, pageLimit, userFields), pageLimit, User::getId);
+    }
+
+    public void exportUsers(Consumer<User> action) {
+        userStorage.streamAll(action);
     }
 
     public User updateUser(User newUser) {
         User updatedUser;
-        if (userStorage.findById(newUser.getId()) == null) {
+        if (!userStorage.existsById(newUser.getId())) {
             log.warn("Attempt to update non-existing user with ID: {}", newUser.getId());
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
         }
@@ -63,66 +93,69 @@ public class UserService {
     }
 
     public boolean deleteUser(int id) {
-        if (userStorage.findById(id) == null) {
+        if (!userStorage.existsById(id)) {
             log.warn("Attempt to delete non-existing user with ID: {}", id);
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
         }
+        // лайки снимаем через хранилище фильмов, чтобы сбросить кэш этих фильмов и поправить лидерборд;
+        // счётчики в базе меняются только здесь, поэтому база, кэш и лидерборд не расходятся
+        List<Integer> likedFilmIds = filmStorage.removeLikesBy(id);
+        likedFilmIds.forEach(leaderboard::decrement);
         return userStorage.delete(id);
     }
 
     public boolean addFriend(int id, int friendId) {
-        User user = userStorage.findById(id);
-        User friend = userStorage.findById(friendId);
-
-        if (user == null || friend == null) {
+        if (!userStorage.existsById(id) || !userStorage.existsById(friendId)) {
             log.warn("Attempt to add a friend that does not exist: User ID {}, Friend ID {}", id, friendId);
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User or Friend not found");
         }
-        user.getFriends().add(friendId);
-        return userStorage.update(id, user) != null;
+        if (userStorage.addFriendship(id, friendId)) {
+            log.info("User {} added friend {}", id, friendId);
+        }
+        return true;
     }
 
     public boolean deleteFriend(int id, int friendId) {
-        User user = userStorage.findById(id);
-        User friend = userStorage.findById(friendId);
-
-        if (user == null || friend == null) {
+        if (!userStorage.existsById(id) || !userStorage.existsById(friendId)) {
             log.warn("Attempt to delete a friend that does not exist: User ID {}, Friend ID {}", id, friendId);
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User or Friend not found");
         }
-        user.getFriends().remove(friendId);
-        return userStorage.update(id, user) != null;
-    }
-
-    public List<User> findFriends(int id) {
-        User user = userStorage.findById(id);
-        if (user == null) {
-            log.warn("Attempt to contact a user that does not exist: User ID {}", id);
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
+        if (userStorage.removeFriendship(id, friendId)) {
+            log.info("User {} deleted friend {}", id, friendId);
         }
-
-        return user.getFriends().stream()
-                .map(userStorage::findById)
-                .filter(Objects::nonNull)
-                .sorted(Comparator.comparingInt(User::getId))
-                .collect(Collectors.toList());
+        return true;
     }
 
-    public Set<User> findMutualFriends(int id, int otherId) {
-        User user = userStorage.findById(id);
-        User otherUser = userStorage.findById(otherId);
+    public List<UserSummary> findFriends(int id) {
+        checkUserExists(id);
+        return userStorage.findFriends(id);
+    }
 
-        if (user == null || otherUser == null) {
+    public List<UserSummary> findMutualFriends(int id, int otherId) {
+        if (!userStorage.existsById(id) || !userStorage.existsById(otherId)) {
             log.warn("Attempt to contact a user that does not exist: User ID {}, OtherUser ID {}", id, otherId);
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User or OtherUser not found");
         }
+        return userStorage.findCommonFriends(id, otherId);
+    }
 
-        Set<Integer> mutualFriends = new HashSet<>(user.getFriends());
-        mutualFriends.retainAll(otherUser.getFriends());
+    private static Set<UserField> resolveFields(Set<String> names) {
+        if (names == null || names.isEmpty()) {
+            return EnumSet.allOf(UserField.class);
+        }
+        Set<UserField> fields = EnumSet.of(UserField.ID);
+        for (String name : names) {
+            fields.add(UserField.fromJsonName(name).orElseThrow(() ->
+                    new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown field: " + name)));
+        }
+        return fields;
+    }
 
-        return mutualFriends.stream()
-                .map(userStorage::findById)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toSet());
+    private int resolvePageLimit(int afterId, Integer limit) {
+        if (afterId < 0 || (limit != null && limit <= 0)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "afterId must not be negative and limit must be positive.");
+        }
+        return limit == null ? defaultPageLimit : Math.min(limit, maxPageLimit);
     }
 }
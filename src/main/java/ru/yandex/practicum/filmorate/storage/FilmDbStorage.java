@@ -1,6 +1,10 @@
 package ru.yandex.practicum.filmorate.storage;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Setter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
@@ -8,26 +12,76 @@ import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmField;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.IntHashSet;
 import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.metrics.StorageMetrics;
 import ru.yandex.practicum.filmorate.storage.interfaces.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.interfaces.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.interfaces.MpaStorage;
 
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
+import java.time.LocalDate;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Repository
-@RequiredArgsConstructor
 public class FilmDbStorage implements FilmStorage {
 
+    private static final int IN_CHUNK_SIZE = 500;
+
+    private static final Set<FilmField> ALL_FIELDS = Collections.unmodifiableSet(EnumSet.allOf(FilmField.class));
+
+    private static final Mpa NO_MPA = new Mpa(null, null);
+
     private final JdbcTemplate jdbcTemplate;
 
+    private final GenreStorage genreStorage;
+
+    private final MpaStorage mpaStorage;
+
+    // один маппер на все запросы, Genre и Mpa берутся из общих справочников без копирования
+    private final RowMapper<Film> filmMapper = (rs, rowNum) -> mapFilm(rs, ALL_FIELDS);
+
+    private final Counter joinedRowsRead;
+
+    private final Counter filmRowsRead;
+
+    private final Counter genreRowsRead;
+
+    @Setter
+    @Value("${filmorate.storage.film-hydration:MULTI_QUERY}")
+    private FilmHydration hydration = FilmHydration.MULTI_QUERY;
+
+    @Setter
+    @Value("${filmorate.storage.batch-size:1000}")
+    private int batchSize = 1000;
+
+    @Setter
+    @Value("${filmorate.storage.export-page-size:1000}")
+    private int exportPageSize = 1000;
+
+    public FilmDbStorage(JdbcTemplate jdbcTemplate, GenreStorage genreStorage, MpaStorage mpaStorage,
+                         MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.genreStorage = genreStorage;
+        this.mpaStorage = mpaStorage;
+        this.joinedRowsRead = StorageMetrics.rowsRead(meterRegistry, "film_join");
+        this.filmRowsRead = StorageMetrics.rowsRead(meterRegistry, "films");
+        this.genreRowsRead = StorageMetrics.rowsRead(meterRegistry, "film_genre");
+    }
+
     @Override
+    @Transactional
     public Film create(Film film) {
-        String sqlQuery = "INSERT INTO films (name, description, release_date, duration, mpa_id) " +
-                "VALUES (?, ?, ?, ?, ?)";
+        String sqlQuery = "INSERT INTO films (name, description, release_date, duration, mpa_id, like_count) " +
+                "VALUES (?, ?, ?, ?, ?, ?)";
+        int likeCount = film.getLikes() == null ? 0 : film.getLikes().size();
         KeyHolder keyHolder = new GeneratedKeyHolder();
         jdbcTemplate.update(connection -> {
             PreparedStatement ps = connection.prepareStatement(sqlQuery, new String[] { "id" });
@@ -40,18 +94,13 @@ public class FilmDbStorage implements FilmStorage {
             } else {
                 ps.setNull(5, Types.INTEGER);
             }
+            ps.setInt(6, likeCount);
             return ps;
         }, keyHolder);
         film.setId(keyHolder.getKey().intValue());
-        if (film.getGenres() != null && !film.getGenres().isEmpty()) {
-            List<Genre> sortedGenres = film.getGenres().stream()
-                    .sorted(Comparator.comparingInt(Genre::getId))
-                    .collect(Collectors.toList());
-            saveGenres(film.getId(), sortedGenres);
-        }
-        if (film.getLikes() != null && !film.getLikes().isEmpty()) {
-            saveLikes(film.getId(), film.getLikes());
-        }
+        film.setLikeCount(likeCount);
+        saveGenres(film.getId(), film.getGenres());
+        saveLikes(film.getId(), film.getLikes());
         return film;
     }
 
@@ -80,95 +129,285 @@ public class FilmDbStorage implements FilmStorage {
             return ps;
         });
         updateGenres(id, newFilm.getGenres());
-        updateLikes(id, newFilm.getLikes());
 
         return findById(id);
     }
 
     @Override
     public Film findById(int id) {
+        if (hydration == FilmHydration.JOIN) {
+            return findByIdJoined(id);
+        }
+        Map<Integer, Film> films = loadFilms(" WHERE f.id = ?", id);
+        if (films.isEmpty()) {
+            return null;
+        }
+        loadGenres(films, " WHERE fg.film_id = ?", id);
+        return films.get(id);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Film> findAll() {
+        if (hydration == FilmHydration.JOIN) {
+            return findAllJoined();
+        }
+        Map<Integer, Film> films = loadFilms("");
+        loadGenres(films, "");
+        return new ArrayList<>(films.values());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Film> findPage(int afterId, int limit, Set<FilmField> fields) {
+        String sql = "SELECT " + filmColumns(fields) + " " +
+                "FROM films AS f " +
+                "WHERE f.id > ? " +
+                "ORDER BY f.id LIMIT ?";
+        Map<Integer, Film> films = new LinkedHashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            Film film = mapFilm(rs, fields);
+            films.put(film.getId(), film);
+        }, afterId, limit);
+
+        if (fields.contains(FilmField.GENRES)) {
+            List<Integer> ids = new ArrayList<>(films.keySet());
+            for (int from = 0; from < ids.size(); from += IN_CHUNK_SIZE) {
+                List<Integer> chunk = ids.subList(from, Math.min(from + IN_CHUNK_SIZE, ids.size()));
+                String in = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+                loadGenres(films, " WHERE fg.film_id IN (" + in + ")", chunk.toArray());
+            }
+        }
+        return new ArrayList<>(films.values());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Film> findByIds(Collection<Integer> ids) {
+        Map<Integer, Film> films = new HashMap<>();
+        List<Integer> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        for (int from = 0; from < distinctIds.size(); from += IN_CHUNK_SIZE) {
+            List<Integer> chunk = distinctIds.subList(from, Math.min(from + IN_CHUNK_SIZE, distinctIds.size()));
+            Object[] args = chunk.toArray();
+            String in = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+            Map<Integer, Film> loaded = loadFilms(" WHERE f.id IN (" + in + ")", args);
+            loadGenres(loaded, " WHERE fg.film_id IN (" + in + ")", args);
+            films.putAll(loaded);
+        }
+
+        List<Film> result = new ArrayList<>(films.size());
+        for (Integer id : distinctIds) {
+            Film film = films.get(id);
+            if (film != null) {
+                result.add(film);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void streamAll(Consumer<Film> action) {
+        // страницами по id: ни H2, ни мы не держим в памяти больше одной страницы фильмов и их жанров
+        String sql = "SELECT f.* " +
+                "FROM films AS f " +
+                "WHERE f.id > ? " +
+                "ORDER BY f.id LIMIT ?";
+        int afterId = 0;
+        while (true) {
+            Map<Integer, Film> films = new LinkedHashMap<>();
+            jdbcTemplate.query(sql, rs -> {
+                filmRowsRead.increment();
+                Film film = filmMapper.mapRow(rs, rs.getRow());
+                films.put(film.getId(), film);
+            }, afterId, exportPageSize);
+            if (films.isEmpty()) {
+                return;
+            }
+            int lastId = afterId;
+            for (Integer id : films.keySet()) {
+                lastId = id;
+            }
+            loadGenres(films, " WHERE fg.film_id > ? AND fg.film_id <= ?", afterId, lastId);
+            loadLikes(films, afterId, lastId);
+            films.values().forEach(action);
+            if (films.size() < exportPageSize) {
+                return;
+            }
+            afterId = lastId;
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Film> findPopular(int count, Integer genreId, Integer year) {
+        StringBuilder sql = new StringBuilder("SELECT f.id " +
+                "FROM films AS f " +
+                "WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        if (genreId != null) {
+            sql.append(" AND EXISTS (SELECT 1 FROM film_genre AS fg WHERE fg.film_id = f.id AND fg.genre_id = ?)");
+            args.add(genreId);
+        }
+        if (year != null) {
+            sql.append(" AND f.release_date >= ? AND f.release_date < ?");
+            args.add(java.sql.Date.valueOf(LocalDate.of(year, 1, 1)));
+            args.add(java.sql.Date.valueOf(LocalDate.of(year + 1, 1, 1)));
+        }
+        sql.append(" ORDER BY f.like_count DESC, f.id LIMIT ?");
+        args.add(count);
+
+        List<Integer> ids = jdbcTemplate.queryForList(sql.toString(), Integer.class, args.toArray());
+        return findByIds(ids);
+    }
+
+    @Override
+    public Map<Integer, Integer> findLikeCounts() {
+        String sql = "SELECT id, like_count FROM films";
+        Map<Integer, Integer> counts = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            counts.put(rs.getInt("id"), rs.getInt("like_count"));
+        });
+        return counts;
+    }
+
+    @Override
+    public Map<Integer, IntHashSet> findLikes(Collection<Integer> filmIds) {
+        Map<Integer, IntHashSet> likes = new HashMap<>();
+        List<Integer> distinctIds = new ArrayList<>(new LinkedHashSet<>(filmIds));
+        for (int from = 0; from < distinctIds.size(); from += IN_CHUNK_SIZE) {
+            List<Integer> chunk = distinctIds.subList(from, Math.min(from + IN_CHUNK_SIZE, distinctIds.size()));
+            String sql = "SELECT film_id, user_id FROM likes WHERE film_id IN (" +
+                    String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+            jdbcTemplate.query(sql, rs -> {
+                likes.computeIfAbsent(rs.getInt("film_id"), id -> new IntHashSet()).addInt(rs.getInt("user_id"));
+            }, chunk.toArray());
+        }
+        return likes;
+    }
+
+    @Override
+    public List<Integer> findLikesPage(int filmId, int afterUserId, int limit) {
+        String sql = "SELECT user_id FROM likes WHERE film_id = ? AND user_id > ? ORDER BY user_id LIMIT ?";
+        return jdbcTemplate.queryForList(sql, Integer.class, filmId, afterUserId, limit);
+    }
+
+    @Override
+    public boolean existsById(int id) {
+        String sql = "SELECT EXISTS (SELECT 1 FROM films WHERE id = ?)";
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(sql, Boolean.class, id));
+    }
+
+    @Override
+    @Transactional
+    public boolean addLike(int filmId, int userId) {
+        String sql = "MERGE INTO likes AS l " +
+                "USING (SELECT CAST(? AS INT) AS film_id, CAST(? AS INT) AS user_id) AS s " +
+                "ON l.film_id = s.film_id AND l.user_id = s.user_id " +
+                "WHEN NOT MATCHED THEN INSERT (film_id, user_id) VALUES (s.film_id, s.user_id)";
+        try {
+            if (jdbcTemplate.update(sql, filmId, userId) == 0) {
+                return false;
+            }
+        } catch (DuplicateKeyException e) {
+            // параллельный запрос успел вставить тот же лайк
+            return false;
+        }
+        jdbcTemplate.update("UPDATE films SET like_count = like_count + 1 WHERE id = ?", filmId);
+        return true;
+    }
+
+    @Override
+    @Transactional
+    public boolean removeLike(int filmId, int userId) {
+        String sql = "DELETE FROM likes WHERE film_id = ? AND user_id = ?";
+        if (jdbcTemplate.update(sql, filmId, userId) == 0) {
+            return false;
+        }
+        jdbcTemplate.update("UPDATE films SET like_count = like_count - 1 WHERE id = ?", filmId);
+        return true;
+    }
+
+    @Override
+    @Transactional
+    public List<Integer> removeLikesBy(int userId) {
+        List<Integer> filmIds = jdbcTemplate.queryForList(
+                "SELECT film_id FROM likes WHERE user_id = ? ORDER BY film_id", Integer.class, userId);
+        if (filmIds.isEmpty()) {
+            return filmIds;
+        }
+        jdbcTemplate.update("UPDATE films SET like_count = like_count - 1 " +
+                "WHERE id IN (SELECT film_id FROM likes WHERE user_id = ?)", userId);
+        jdbcTemplate.update("DELETE FROM likes WHERE user_id = ?", userId);
+        return filmIds;
+    }
+
+    @Override
+    public boolean delete(int id) {
+        String sql = "DELETE FROM films WHERE id = ?";
+        return jdbcTemplate.update(sql, id) > 0;
+    }
+
+
+    private Film findByIdJoined(int id) {
         String sql = "SELECT f.*, " +
-                "m.name AS mpa_name," +
-                "g.id AS genre_id, " +
-                "g.name AS genre_name, " +
-                "l.user_id AS user_id_like " +
+                "fg.genre_id " +
                 "FROM films AS f " +
-                "LEFT JOIN mpa AS m ON f.mpa_id = m.id " +
                 "LEFT JOIN film_genre AS fg ON f.id = fg.film_id " +
-                "LEFT JOIN genres AS g ON fg.genre_id = g.id " +
-                "LEFT JOIN likes AS l ON f.id = l.film_id " +
                 "WHERE f.id = ?";
 
         return jdbcTemplate.query(sql, new Object[]{id}, rs -> {
             Film film = null;
             List<Genre> genres = new ArrayList<>();
-            Set<Integer> likes = new HashSet<>();
+            int rows = 0;
 
             while (rs.next()) {
+                rows++;
                 if (film == null) {
-                    film = getFilmMapper().mapRow(rs, rs.getRow());
+                    film = filmMapper.mapRow(rs, rs.getRow());
                 }
                 int genreId = rs.getInt("genre_id");
                 if (genreId != 0) {
-                    Genre genre = new Genre();
-                    genre.setId(genreId);
-                    genre.setName(rs.getString("genre_name"));
-                    genres.add(genre);
-                }
-                int userIdLike = rs.getInt("user_id_like");
-                if (userIdLike != 0) {
-                    likes.add(userIdLike);
+                    Genre genre = resolveGenre(genreId);
+                    if (!genres.contains(genre)) {
+                        genres.add(genre);
+                    }
                 }
             }
+            joinedRowsRead.increment(rows);
             if (film != null) {
                 film.setGenres(genres);
-                film.setLikes(likes);
             }
             return film;
         });
     }
 
-    @Override
-    public List<Film> findAll() {
+    private List<Film> findAllJoined() {
         String sql = "SELECT f.*," +
-                "m.name AS mpa_name, " +
-                "g.id AS genre_id, " +
-                "g.name AS genre_name, " +
-                "l.user_id  AS user_id_like " +
+                "fg.genre_id " +
                 "FROM films f " +
-                "LEFT JOIN mpa AS m ON f.mpa_id = m.id " +
-                "LEFT JOIN film_genre AS fg ON f.id = fg.film_id " +
-                "LEFT JOIN genres AS g ON fg.genre_id = g.id " +
-                "LEFT JOIN likes AS l ON f.id = l.film_id";
+                "LEFT JOIN film_genre AS fg ON f.id = fg.film_id";
 
         return jdbcTemplate.query(sql, rs -> {
             Map<Integer, Film> filmMap = new HashMap<>();
+            int rows = 0;
 
             while (rs.next()) {
+                rows++;
                 int filmId = rs.getInt("id");
-                // computeIfAbsent для создания нового объекта Film, если он еще не существует в filmMap
-                Film film = filmMap.computeIfAbsent(filmId, id -> {
-                    try {
-                        return getFilmMapper().mapRow(rs, rs.getRow());
-                    } catch (SQLException e) {
-                        throw new RuntimeException(e);
-                    }
-                });
-                assert film != null;
-                Set<Genre> uniqueGenres = new HashSet<>(film.getGenres());
+                Film film = filmMap.get(filmId);
+                if (film == null) {
+                    film = filmMapper.mapRow(rs, rs.getRow());
+                    filmMap.put(filmId, film);
+                }
                 int genreId = rs.getInt("genre_id");
                 if (genreId != 0) {
-                    Genre genre = new Genre();
-                    genre.setId(genreId);
-                    genre.setName(rs.getString("genre_name"));
-                    uniqueGenres.add(genre);
-                }
-                film.setGenres(new ArrayList<>(uniqueGenres));
-                int userIdLike = rs.getInt("user_id_like");
-                if (userIdLike != 0) {
-                    film.getLikes().add(userIdLike);
+                    Genre genre = resolveGenre(genreId);
+                    if (!film.getGenres().contains(genre)) {
+                        film.getGenres().add(genre);
+                    }
                 }
             }
+            joinedRowsRead.increment(rows);
             filmMap.values().forEach(film -> {
                 film.getGenres().sort(Comparator.comparingInt(Genre::getId));
             });
@@ -178,81 +417,149 @@ public class FilmDbStorage implements FilmStorage {
         });
     }
 
-    @Override
-    public boolean delete(int id) {
-        String sql = "DELETE FROM films WHERE id = ?";
-        return jdbcTemplate.update(sql, id) > 0;
+    private Map<Integer, Film> loadFilms(String where, Object... args) {
+        String sql = "SELECT f.* " +
+                "FROM films AS f" +
+                where +
+                " ORDER BY f.id";
+        Map<Integer, Film> films = new LinkedHashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            filmRowsRead.increment();
+            Film film = filmMapper.mapRow(rs, rs.getRow());
+            films.put(film.getId(), film);
+        }, args);
+        return films;
     }
 
+    private void loadGenres(Map<Integer, Film> films, String where, Object... args) {
+        String sql = "SELECT DISTINCT fg.film_id, fg.genre_id " +
+                "FROM film_genre AS fg" +
+                where +
+                " ORDER BY fg.film_id, fg.genre_id";
+        jdbcTemplate.query(sql, rs -> {
+            genreRowsRead.increment();
+            Film film = films.get(rs.getInt("film_id"));
+            if (film != null) {
+                film.getGenres().add(resolveGenre(rs.getInt("genre_id")));
+            }
+        }, args);
+    }
 
-    private static RowMapper<Film> getFilmMapper() {
-        return (rs, rowNum) -> {
-           Film film = new Film();
-           film.setId(rs.getInt("id"));
-           film.setName(rs.getString("name"));
-           film.setDescription(rs.getString("description"));
-           film.setReleaseDate(rs.getDate("release_date").toLocalDate());
-           film.setDuration(rs.getInt("duration"));
-
-           Mpa mpa = new Mpa();
-           if (rs.getInt("mpa_id") != 0) {
-              mpa.setId(rs.getInt("mpa_id"));
-              mpa.setName(rs.getString("mpa_name"));
-           }
-           film.setMpa(mpa);
-
-           List<Genre> genres = new ArrayList<>();
-           if (rs.getInt("genre_id") != 0) {
-               Genre genre = new Genre();
-               genre.setId(rs.getInt("genre_id"));
-               genre.setName(rs.getString("genre_name"));
-               genres.add(genre);
-           }
-           film.setGenres(genres);
-
-           Set<Integer> likes = new HashSet<>();
-           if (rs.getInt("user_id_like") != 0) {
-               likes.add(rs.getInt("user_id_like"));
-           }
-           film.setLikes(likes);
-
-           return film;
-       };
+    // выгрузка — полный дамп, поэтому в отличие от findAll/findById несёт и id лайкнувших
+    private void loadLikes(Map<Integer, Film> films, int afterId, int lastId) {
+        films.values().forEach(film -> film.setLikes(new IntHashSet()));
+        String sql = "SELECT film_id, user_id FROM likes WHERE film_id > ? AND film_id <= ? ORDER BY film_id, user_id";
+        jdbcTemplate.query(sql, rs -> {
+            films.get(rs.getInt("film_id")).getLikes().addInt(rs.getInt("user_id"));
+        }, afterId, lastId);
     }
 
-    private void saveGenres(int filmId, List<Genre> genres) {
-        Set<Genre> uniqueGenres = new HashSet<>(genres);
-        List<Genre> sortedGenres = new ArrayList<>(uniqueGenres);
-        sortedGenres.sort(Comparator.comparingInt(Genre::getId));
-
-        if (sortedGenres.size() > 0) {
-            for (Genre genre : genres) {
-                String sql = "INSERT INTO film_genre (film_id, genre_id) VALUES (?, ?) ";
-                jdbcTemplate.update(sql, filmId, genre.getId());
+    private Mpa resolveMpa(int mpaId) {
+        if (mpaId == 0) {
+            return NO_MPA;
+        }
+        Mpa mpa = mpaStorage.findById(mpaId);
+        if (mpa == null) {
+            // справочник могли пополнить в обход хранилища: перечитываем его и ищем ещё раз
+            mpaStorage.refresh();
+            mpa = mpaStorage.findById(mpaId);
+        }
+        return mpa != null ? mpa : new Mpa(mpaId, null);
+    }
+
+    private Genre resolveGenre(int genreId) {
+        Genre genre = genreStorage.findById(genreId);
+        if (genre == null) {
+            genreStorage.refresh();
+            genre = genreStorage.findById(genreId);
+        }
+        return genre != null ? genre : new Genre(genreId, null);
+    }
+
+    private Film mapFilm(ResultSet rs, Set<FilmField> fields) throws SQLException {
+        Film film = new Film();
+        film.setId(rs.getInt("id"));
+        if (fields.contains(FilmField.NAME)) {
+            film.setName(rs.getString("name"));
+        }
+        if (fields.contains(FilmField.DESCRIPTION)) {
+            film.setDescription(rs.getString("description"));
+        }
+        if (fields.contains(FilmField.RELEASE_DATE)) {
+            film.setReleaseDate(rs.getDate("release_date").toLocalDate());
+        }
+        if (fields.contains(FilmField.DURATION)) {
+            film.setDuration(rs.getInt("duration"));
+        }
+        if (fields.contains(FilmField.MPA)) {
+            film.setMpa(resolveMpa(rs.getInt("mpa_id")));
+        }
+        if (fields.contains(FilmField.LIKE_COUNT)) {
+            film.setLikeCount(rs.getInt("like_count"));
+        }
+        return film;
+    }
+
+    private static String filmColumns(Set<FilmField> fields) {
+        StringJoiner columns = new StringJoiner(", ");
+        columns.add("f.id");
+        for (FilmField field : fields) {
+            switch (field) {
+                case NAME:
+                    columns.add("f.name");
+                    break;
+                case DESCRIPTION:
+                    columns.add("f.description");
+                    break;
+                case RELEASE_DATE:
+                    columns.add("f.release_date");
+                    break;
+                case DURATION:
+                    columns.add("f.duration");
+                    break;
+                case MPA:
+                    columns.add("f.mpa_id");
+                    break;
+                case LIKE_COUNT:
+                    columns.add("f.like_count");
+                    break;
+                default:
+                    // id уже выбран, жанры читаются отдельным запросом
             }
         }
+        return columns.toString();
+    }
+
+    private void saveGenres(int filmId, List<Genre> genres) {
+        if (genres == null || genres.isEmpty()) {
+            return;
+        }
+        List<Integer> genreIds = genres.stream()
+                .map(Genre::getId)
+                .distinct()
+                .sorted()
+                .collect(Collectors.toList());
+        String sql = "INSERT INTO film_genre (film_id, genre_id) VALUES (?, ?)";
+        jdbcTemplate.batchUpdate(sql, genreIds, batchSize, (ps, genreId) -> {
+            ps.setInt(1, filmId);
+            ps.setInt(2, genreId);
+        });
     }
 
     private void updateGenres(int filmId, List<Genre> newGenres) {
         String sql = "DELETE FROM film_genre WHERE film_id = ?";
         jdbcTemplate.update(sql, filmId);
-        List<Genre> uniqueSortedGenres = new ArrayList<>(new LinkedHashSet<>(newGenres));
-        uniqueSortedGenres.sort(Comparator.comparingInt(Genre::getId));
-        saveGenres(filmId, uniqueSortedGenres);
+        saveGenres(filmId, newGenres);
     }
 
     private void saveLikes(int filmId, Set<Integer> likes) {
-        if (likes.size() > 0) {
-            for (Integer userIdLike : likes) {
-                String sql = "INSERT INTO likes (user_id, film_id) VALUES (?, ?) ";
-                jdbcTemplate.update(sql, userIdLike, filmId);
-            }
+        if (likes == null || likes.isEmpty()) {
+            return;
         }
-    }
-
-    private void updateLikes(int filmId, Set<Integer> newLikes) {
-        String sql = "DELETE FROM likes WHERE film_id = ?";
-        jdbcTemplate.update(sql, filmId);
-        saveLikes(filmId, newLikes);
+        String sql = "INSERT INTO likes (user_id, film_id) VALUES (?, ?)";
+        jdbcTemplate.batchUpdate(sql, likes, batchSize, (ps, userId) -> {
+            ps.setInt(1, userId);
+            ps.setInt(2, filmId);
+        });
     }
 }
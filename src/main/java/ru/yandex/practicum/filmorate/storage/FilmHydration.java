@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.storage;
+
+/**
+ * Strategy used by {@link FilmDbStorage} to assemble films together with their genres.
+ * Likes are never part of hydration, see {@link FilmDbStorage#findLikes}.
+ */
+public enum FilmHydration {
+    /**
+     * One LEFT JOIN over films and genres. Returns one row per genre of a film.
+     */
+    JOIN,
+    /**
+     * Films and genres are read by separate queries and stitched together by film id.
+     */
+    MULTI_QUERY
+}
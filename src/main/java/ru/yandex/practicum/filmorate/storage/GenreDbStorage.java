@@ -9,11 +9,9 @@ import org.springframework.stereotype.Repository;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.storage.interfaces.GenreStorage;
 
+import javax.annotation.PostConstruct;
 import java.sql.PreparedStatement;
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 @Repository
 @RequiredArgsConstructor
@@ -21,6 +19,13 @@ public class GenreDbStorage implements GenreStorage {
 
     private final JdbcTemplate jdbcTemplate;
 
+    private volatile ReferenceCatalog<Genre> catalog;
+
+    @PostConstruct
+    public void preload() {
+        refresh();
+    }
+
     @Override
     public Genre create(Genre genre) {
         String sqlQuery = "INSERT INTO genres (name) VALUES (?)";
@@ -30,56 +35,56 @@ public class GenreDbStorage implements GenreStorage {
             ps.setString(1, genre.getName());
             return ps;
         }, keyHolder);
-        genre.setId(keyHolder.getKey().intValue());
-        return findById(genre.getId());
+        int id = keyHolder.getKey().intValue();
+        refresh();
+        return findById(id);
     }
 
     @Override
     public Genre findById(int id) {
-        String sql = "SELECT * " +
-                "FROM genres " +
-                "WHERE genres.id = ?";
-        List<Genre> result = jdbcTemplate.query(sql, new Object[]{id}, getGenreMapper());
-        return result.isEmpty() ? null : result.get(0);
+        return catalog().get(id);
     }
 
     @Override
     public List<Genre> findAll() {
-        String sql = "SELECT * FROM genres";
-
-        return jdbcTemplate.query(sql, rs -> {
-            Map<Integer, Genre> genresMap = new HashMap<>();
-
-            while (rs.next()) {
-                int genreId = rs.getInt("id");
-                if (!genresMap.containsKey(genreId)) {
-                    Genre genre = getGenreMapper().mapRow(rs, rs.getRow());
-                    genresMap.put(genreId, genre);
-                }
-            }
-            return new ArrayList<>(genresMap.values());
-        });
+        return catalog().all();
     }
 
     @Override
     public Genre update(int id, Genre newGenre) {
         String sql = "UPDATE genres SET name = ? WHERE id = ?";
         jdbcTemplate.update(sql, newGenre.getName(), id);
+        refresh();
         return findById(id);
     }
 
     @Override
     public boolean delete(int id) {
         String sql = "DELETE FROM genres WHERE id = ?";
-        return jdbcTemplate.update(sql, id) > 0;
+        boolean deleted = jdbcTemplate.update(sql, id) > 0;
+        refresh();
+        return deleted;
+    }
+
+    private ReferenceCatalog<Genre> catalog() {
+        ReferenceCatalog<Genre> current = catalog;
+        return current != null ? current : load();
+    }
+
+    @Override
+    public void refresh() {
+        load();
+    }
+
+    private synchronized ReferenceCatalog<Genre> load() {
+        String sql = "SELECT * FROM genres";
+        ReferenceCatalog<Genre> loaded = new ReferenceCatalog<>(jdbcTemplate.query(sql, getGenreMapper()),
+                Genre::getId);
+        catalog = loaded;
+        return loaded;
     }
 
     private static RowMapper<Genre> getGenreMapper() {
-        return (rs, rowNum) -> {
-            Genre genre = new Genre();
-            genre.setId(rs.getInt("id"));
-            genre.setName(rs.getString("name"));
-            return genre;
-        };
+        return (rs, rowNum) -> new Genre(rs.getInt("id"), rs.getString("name"));
     }
 }
@@ -0,0 +1,37 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Immutable snapshot of a small reference table (genres, MPA ratings) indexed by id.
+ * Storages swap the whole snapshot on every change instead of mutating it.
+ */
+final class ReferenceCatalog<T> {
+
+    private final Object[] byId;
+    private final List<T> all;
+
+    ReferenceCatalog(List<T> items, ToIntFunction<T> idOf) {
+        List<T> sorted = new ArrayList<>(items);
+        sorted.sort(Comparator.comparingInt(idOf));
+        int maxId = sorted.isEmpty() ? 0 : idOf.applyAsInt(sorted.get(sorted.size() - 1));
+        this.byId = new Object[maxId + 1];
+        for (T item : sorted) {
+            byId[idOf.applyAsInt(item)] = item;
+        }
+        this.all = Collections.unmodifiableList(sorted);
+    }
+
+    @SuppressWarnings("unchecked")
+    T get(int id) {
+        return id > 0 && id < byId.length ? (T) byId[id] : null;
+    }
+
+    List<T> all() {
+        return all;
+    }
+}
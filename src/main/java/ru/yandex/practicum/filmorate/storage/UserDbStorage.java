@@ -1,25 +1,55 @@
 package ru.yandex.practicum.filmorate.storage;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Setter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.model.IntHashSet;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserField;
+import ru.yandex.practicum.filmorate.model.UserSummary;
+import ru.yandex.practicum.filmorate.metrics.StorageMetrics;
 import ru.yandex.practicum.filmorate.storage.interfaces.UserStorage;
 
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.function.Consumer;
 
 @Repository
-@RequiredArgsConstructor
 public class UserDbStorage implements UserStorage {
+
+    private static final int IN_CHUNK_SIZE = 500;
+
+    private static final Set<UserField> ALL_FIELDS = Collections.unmodifiableSet(EnumSet.allOf(UserField.class));
+
     private final JdbcTemplate jdbcTemplate;
 
+    private final Counter joinedRowsRead;
+
+    @Setter
+    @Value("${filmorate.storage.batch-size:1000}")
+    private int batchSize = 1000;
+
+    @Setter
+    @Value("${filmorate.storage.export-page-size:1000}")
+    private int exportPageSize = 1000;
+
+    public UserDbStorage(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.joinedRowsRead = StorageMetrics.rowsRead(meterRegistry, "user_join");
+    }
+
     @Override
+    @Transactional
     public User create(User user) {
         String sqlQuery = "INSERT INTO users (email, login, name, birthday) " +
                 "VALUES (?, ?, ?, ?)";
@@ -45,17 +75,20 @@ public class UserDbStorage implements UserStorage {
                 "WHERE u.id = ?";
         return jdbcTemplate.query(sql, new Object[]{id}, rs -> {
             User user = null;
-            Set<Integer> friends = new HashSet<>();
+            IntHashSet friends = new IntHashSet();
+            int rows = 0;
 
             while (rs.next()) {
+                rows++;
                 if (user == null) {
                     user = getUserMapper().mapRow(rs, rs.getRow());
                 }
                 int friendId = rs.getInt("friend_id");
                 if (friendId != 0) {
-                    friends.add(friendId);
+                    friends.addInt(friendId);
                 }
             }
+            joinedRowsRead.increment(rows);
             if (user != null) {
                 user.setFriends(friends);
             }
@@ -70,7 +103,9 @@ public class UserDbStorage implements UserStorage {
                 "LEFT JOIN friendships AS f ON u.id = f.user_id";
         return jdbcTemplate.query(sql, rs -> {
             Map<Integer, User> userMap = new HashMap<>();
+            int rows = 0;
             while (rs.next()) {
+                rows++;
                 int userId = rs.getInt("id");
                 userMap.computeIfAbsent(userId, id -> {
                     try {
@@ -82,15 +117,94 @@ public class UserDbStorage implements UserStorage {
                 User user = userMap.get(userId);
                 int friendId = rs.getInt("friend_id");
                 if (friendId != 0) {
-                    user.getFriends().add(friendId);
+                    user.getFriends().addInt(friendId);
                 }
             }
+            joinedRowsRead.increment(rows);
             List<User> sortedUsers = new ArrayList<>(userMap.values());
             sortedUsers.sort(Comparator.comparingInt(User::getId));
             return sortedUsers;
         });
     }
 
+    @Override
+    public void streamAll(Consumer<User> action) {
+        // страницами по id: ни H2, ни мы не держим в памяти больше одной страницы пользователей и их друзей
+        String usersSql = "SELECT * FROM users WHERE id > ? ORDER BY id LIMIT ?";
+        String friendsSql = "SELECT user_id, friend_id FROM friendships WHERE user_id > ? AND user_id <= ?";
+        int afterId = 0;
+        while (true) {
+            Map<Integer, User> users = new LinkedHashMap<>();
+            jdbcTemplate.query(usersSql, rs -> {
+                User user = getUserMapper().mapRow(rs, rs.getRow());
+                users.put(user.getId(), user);
+            }, afterId, exportPageSize);
+            if (users.isEmpty()) {
+                return;
+            }
+            int lastId = afterId;
+            for (Integer id : users.keySet()) {
+                lastId = id;
+            }
+            jdbcTemplate.query(friendsSql, rs -> {
+                users.get(rs.getInt("user_id")).getFriends().addInt(rs.getInt("friend_id"));
+            }, afterId, lastId);
+            users.values().forEach(action);
+            if (users.size() < exportPageSize) {
+                return;
+            }
+            afterId = lastId;
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<User> findPage(int afterId, int limit, Set<UserField> fields) {
+        String sql = "SELECT " + userColumns(fields) + " " +
+                "FROM users " +
+                "WHERE id > ? " +
+                "ORDER BY id LIMIT ?";
+        Map<Integer, User> users = new LinkedHashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            User user = mapUser(rs, fields);
+            users.put(user.getId(), user);
+        }, afterId, limit);
+
+        if (fields.contains(UserField.FRIENDS)) {
+            List<Integer> ids = new ArrayList<>(users.keySet());
+            for (int from = 0; from < ids.size(); from += IN_CHUNK_SIZE) {
+                List<Integer> chunk = ids.subList(from, Math.min(from + IN_CHUNK_SIZE, ids.size()));
+                String in = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+                jdbcTemplate.query("SELECT user_id, friend_id FROM friendships WHERE user_id IN (" + in + ")",
+                        rs -> {
+                            users.get(rs.getInt("user_id")).getFriends().addInt(rs.getInt("friend_id"));
+                        }, chunk.toArray());
+            }
+        }
+        return new ArrayList<>(users.values());
+    }
+
+    @Override
+    public List<UserSummary> findFriends(int userId) {
+        String sql = "SELECT u.id, u.email, u.login, u.name, u.birthday " +
+                "FROM friendships AS f " +
+                "JOIN users AS u ON f.friend_id = u.id " +
+                "WHERE f.user_id = ? " +
+                "ORDER BY u.id";
+        return jdbcTemplate.query(sql, getUserSummaryMapper(), userId);
+    }
+
+    @Override
+    public List<UserSummary> findCommonFriends(int userId, int otherId) {
+        String sql = "SELECT u.id, u.email, u.login, u.name, u.birthday " +
+                "FROM friendships AS f " +
+                "JOIN friendships AS o ON f.friend_id = o.friend_id " +
+                "JOIN users AS u ON f.friend_id = u.id " +
+                "WHERE f.user_id = ? AND o.user_id = ? " +
+                "ORDER BY u.id";
+        return jdbcTemplate.query(sql, getUserSummaryMapper(), userId, otherId);
+    }
+
     @Override
     @Transactional
     public User update(int id, User newUser) {
@@ -106,48 +220,106 @@ public class UserDbStorage implements UserStorage {
                 java.sql.Date.valueOf(newUser.getBirthday()),
                 id);
 
-        updateFriends(id, newUser.getFriends());
         return findById(id);
     }
 
+    @Override
+    public boolean existsById(int id) {
+        String sql = "SELECT EXISTS (SELECT 1 FROM users WHERE id = ?)";
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(sql, Boolean.class, id));
+    }
+
+    @Override
+    public boolean addFriendship(int userId, int friendId) {
+        String sql = "MERGE INTO friendships AS f " +
+                "USING (SELECT CAST(? AS INT) AS user_id, CAST(? AS INT) AS friend_id) AS s " +
+                "ON f.user_id = s.user_id AND f.friend_id = s.friend_id " +
+                "WHEN NOT MATCHED THEN INSERT (user_id, friend_id) VALUES (s.user_id, s.friend_id)";
+        try {
+            return jdbcTemplate.update(sql, userId, friendId) > 0;
+        } catch (DuplicateKeyException e) {
+            // параллельный запрос успел добавить ту же дружбу
+            return false;
+        }
+    }
+
+    @Override
+    public boolean removeFriendship(int userId, int friendId) {
+        String sql = "DELETE FROM friendships WHERE user_id = ? AND friend_id = ?";
+        return jdbcTemplate.update(sql, userId, friendId) > 0;
+    }
+
     @Override
     public boolean delete(int id) {
+        // лайки удаляются каскадно без правки like_count: перед удалением их снимает FilmStorage.removeLikesBy
         String sql = "DELETE FROM users WHERE id = ?";
         return jdbcTemplate.update(sql, id) > 0;
     }
 
 
     private static RowMapper<User> getUserMapper() {
-        return (rs, rowNum) -> {
-            User user = new User();
-            user.setId(rs.getInt("id"));
+        return (rs, rowNum) -> mapUser(rs, ALL_FIELDS);
+    }
+
+    private static User mapUser(ResultSet rs, Set<UserField> fields) throws SQLException {
+        User user = new User();
+        user.setId(rs.getInt("id"));
+        if (fields.contains(UserField.NAME)) {
             user.setName(rs.getString("name"));
+        }
+        if (fields.contains(UserField.EMAIL)) {
             user.setEmail(rs.getString("email"));
+        }
+        if (fields.contains(UserField.LOGIN)) {
             user.setLogin(rs.getString("login"));
+        }
+        if (fields.contains(UserField.BIRTHDAY)) {
             user.setBirthday(rs.getDate("birthday").toLocalDate());
+        }
+        return user;
+    }
 
-            Set<Integer> friends = new HashSet<>();
-            if (rs.getInt("friend_id") != 0) {
-                friends.add(rs.getInt("friend_id"));
+    private static String userColumns(Set<UserField> fields) {
+        StringJoiner columns = new StringJoiner(", ");
+        columns.add("id");
+        for (UserField field : fields) {
+            switch (field) {
+                case EMAIL:
+                    columns.add("email");
+                    break;
+                case LOGIN:
+                    columns.add("login");
+                    break;
+                case NAME:
+                    columns.add("name");
+                    break;
+                case BIRTHDAY:
+                    columns.add("birthday");
+                    break;
+                default:
+                    // id уже выбран, друзья читаются отдельным запросом
             }
-            user.setFriends(friends);
+        }
+        return columns.toString();
+    }
 
-            return user;
-        };
+    private static RowMapper<UserSummary> getUserSummaryMapper() {
+        return (rs, rowNum) -> new UserSummary(
+                rs.getInt("id"),
+                rs.getString("email"),
+                rs.getString("login"),
+                rs.getString("name"),
+                rs.getDate("birthday").toLocalDate());
     }
 
     private void saveFriends(int userId, Set<Integer> friends) {
-        if (friends.size() > 0) {
-            for (Integer id : friends) {
-                String sql = "INSERT INTO friendships (user_id, friend_id) VALUES (?, ?) ";
-                jdbcTemplate.update(sql, userId, id);
-            }
+        if (friends == null || friends.isEmpty()) {
+            return;
         }
-    }
-
-    private void updateFriends(int userId, Set<Integer> newFriends) {
-        String sql = "DELETE FROM friendships WHERE user_id = ?";
-        jdbcTemplate.update(sql, userId);
-        saveFriends(userId, newFriends);
+        String sql = "INSERT INTO friendships (user_id, friend_id) VALUES (?, ?)";
+        jdbcTemplate.batchUpdate(sql, friends, batchSize, (ps, friendId) -> {
+            ps.setInt(1, userId);
+            ps.setInt(2, friendId);
+        });
     }
 }
@@ -0,0 +1,36 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Publishes {@link LruCache#stats()} as {@code filmorate.cache.hits}, {@code filmorate.cache.misses},
+ * {@code filmorate.cache.evictions} and {@code filmorate.cache.size}, tagged with the cache name.
+ * The values are read from the cache when the registry is scraped.
+ */
+final class CacheMetrics {
+
+    static final String HITS = "filmorate.cache.hits";
+    static final String MISSES = "filmorate.cache.misses";
+    static final String EVICTIONS = "filmorate.cache.evictions";
+    static final String SIZE = "filmorate.cache.size";
+
+    private CacheMetrics() {
+    }
+
+    static void register(MeterRegistry meterRegistry, String name, LruCache<?, ?> cache) {
+        FunctionCounter.builder(HITS, cache, c -> c.stats().getHits())
+                .tag("cache", name)
+                .register(meterRegistry);
+        FunctionCounter.builder(MISSES, cache, c -> c.stats().getMisses())
+                .tag("cache", name)
+                .register(meterRegistry);
+        FunctionCounter.builder(EVICTIONS, cache, c -> c.stats().getEvictions())
+                .tag("cache", name)
+                .register(meterRegistry);
+        Gauge.builder(SIZE, cache, c -> c.stats().getSize())
+                .tag("cache", name)
+                .register(meterRegistry);
+    }
+}
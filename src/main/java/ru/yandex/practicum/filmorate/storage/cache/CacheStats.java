@@ -0,0 +1,11 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import lombok.Data;
+
+@Data
+public class CacheStats {
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long size;
+}
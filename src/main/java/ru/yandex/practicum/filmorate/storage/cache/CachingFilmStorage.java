@@ -0,0 +1,194 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmField;
+import ru.yandex.practicum.filmorate.model.IntHashSet;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.interfaces.FilmStorage;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Read-through cache in front of {@link FilmDbStorage}. Single films are cached by id and
+ * dropped on every write that touches them; list queries and liker ids go straight to the database.
+ * Callers always get their own copy of a cached film. Hits, misses and evictions are published as
+ * {@code filmorate.cache.*} meters tagged {@code cache=films}.
+ */
+@Primary
+@Repository
+@ConditionalOnProperty(name = "filmorate.cache.films.enabled", havingValue = "true", matchIfMissing = true)
+public class CachingFilmStorage implements FilmStorage {
+
+    private final FilmStorage delegate;
+
+    private final LruCache<Integer, Film> cache;
+
+    public CachingFilmStorage(FilmDbStorage delegate,
+                              @Value("${filmorate.cache.films.max-size:10000}") int maxSize,
+                              @Value("${filmorate.cache.films.ttl:10m}") Duration ttl,
+                              MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.cache = new LruCache<>(maxSize, ttl);
+        CacheMetrics.register(meterRegistry, "films", cache);
+    }
+
+    @Override
+    public Film create(Film film) {
+        return delegate.create(film);
+    }
+
+    @Override
+    public Film findById(int id) {
+        Film film = cache.get(id);
+        if (film != null) {
+            return copy(film);
+        }
+        long stamp = cache.stamp();
+        film = delegate.findById(id);
+        if (film != null) {
+            cache.putIfFresh(id, copy(film), stamp);
+        }
+        return film;
+    }
+
+    @Override
+    public List<Film> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<Film> findPage(int afterId, int limit, Set<FilmField> fields) {
+        return delegate.findPage(afterId, limit, fields);
+    }
+
+    @Override
+    public void streamAll(Consumer<Film> action) {
+        delegate.streamAll(action);
+    }
+
+    @Override
+    public List<Film> findByIds(Collection<Integer> ids) {
+        Map<Integer, Film> found = new HashMap<>();
+        List<Integer> missing = new ArrayList<>();
+        for (Integer id : new LinkedHashSet<>(ids)) {
+            Film film = cache.get(id);
+            if (film != null) {
+                found.put(id, copy(film));
+            } else {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            long stamp = cache.stamp();
+            for (Film film : delegate.findByIds(missing)) {
+                cache.putIfFresh(film.getId(), copy(film), stamp);
+                found.put(film.getId(), film);
+            }
+        }
+
+        List<Film> result = new ArrayList<>(found.size());
+        for (Integer id : new LinkedHashSet<>(ids)) {
+            Film film = found.get(id);
+            if (film != null) {
+                result.add(film);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Film> findPopular(int count, Integer genreId, Integer year) {
+        return delegate.findPopular(count, genreId, year);
+    }
+
+    @Override
+    public Map<Integer, Integer> findLikeCounts() {
+        return delegate.findLikeCounts();
+    }
+
+    @Override
+    public Map<Integer, IntHashSet> findLikes(Collection<Integer> filmIds) {
+        return delegate.findLikes(filmIds);
+    }
+
+    @Override
+    public List<Integer> findLikesPage(int filmId, int afterUserId, int limit) {
+        return delegate.findLikesPage(filmId, afterUserId, limit);
+    }
+
+    @Override
+    public Film update(int id, Film newFilm) {
+        Film updated = delegate.update(id, newFilm);
+        cache.invalidate(id);
+        return updated;
+    }
+
+    @Override
+    public boolean delete(int id) {
+        boolean deleted = delegate.delete(id);
+        cache.invalidate(id);
+        return deleted;
+    }
+
+    @Override
+    public boolean existsById(int id) {
+        return cache.contains(id) || delegate.existsById(id);
+    }
+
+    @Override
+    public boolean addLike(int filmId, int userId) {
+        boolean added = delegate.addLike(filmId, userId);
+        if (added) {
+            cache.invalidate(filmId);
+        }
+        return added;
+    }
+
+    @Override
+    public boolean removeLike(int filmId, int userId) {
+        boolean removed = delegate.removeLike(filmId, userId);
+        if (removed) {
+            cache.invalidate(filmId);
+        }
+        return removed;
+    }
+
+    @Override
+    public List<Integer> removeLikesBy(int userId) {
+        List<Integer> filmIds = delegate.removeLikesBy(userId);
+        filmIds.forEach(cache::invalidate);
+        return filmIds;
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    // Mpa и Genre — общие неизменяемые справочники, их не копируем
+    private static Film copy(Film film) {
+        Film copy = new Film();
+        copy.setId(film.getId());
+        copy.setName(film.getName());
+        copy.setDescription(film.getDescription());
+        copy.setReleaseDate(film.getReleaseDate());
+        copy.setDuration(film.getDuration());
+        copy.setMpa(film.getMpa());
+        copy.setGenres(film.getGenres() == null ? null : new ArrayList<>(film.getGenres()));
+        copy.setLikeCount(film.getLikeCount());
+        copy.setLikes(film.getLikes() == null ? null : IntHashSet.copyOf(film.getLikes()));
+        return copy;
+    }
+}
@@ -0,0 +1,142 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.model.IntHashSet;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserField;
+import ru.yandex.practicum.filmorate.model.UserSummary;
+import ru.yandex.practicum.filmorate.storage.UserDbStorage;
+import ru.yandex.practicum.filmorate.storage.interfaces.UserStorage;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Read-through cache in front of {@link UserDbStorage}. Users are cached by id together with their
+ * friend ids, and callers always get their own copy. Friend lists and common friends are not cached:
+ * they come from the storage's SQL projections, which read only the listed users' own rows.
+ * Hits, misses and evictions are published as {@code filmorate.cache.*} meters tagged {@code cache=users}.
+ */
+@Primary
+@Repository
+@ConditionalOnProperty(name = "filmorate.cache.users.enabled", havingValue = "true", matchIfMissing = true)
+public class CachingUserStorage implements UserStorage {
+
+    private final UserStorage delegate;
+
+    private final LruCache<Integer, User> cache;
+
+    public CachingUserStorage(UserDbStorage delegate,
+                              @Value("${filmorate.cache.users.max-size:10000}") int maxSize,
+                              @Value("${filmorate.cache.users.ttl:10m}") Duration ttl,
+                              MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.cache = new LruCache<>(maxSize, ttl);
+        CacheMetrics.register(meterRegistry, "users", cache);
+    }
+
+    @Override
+    public User create(User user) {
+        return delegate.create(user);
+    }
+
+    @Override
+    public User findById(int id) {
+        User user = cache.get(id);
+        if (user != null) {
+            return copy(user);
+        }
+        long stamp = cache.stamp();
+        user = delegate.findById(id);
+        if (user != null) {
+            cache.putIfFresh(id, copy(user), stamp);
+        }
+        return user;
+    }
+
+    @Override
+    public List<User> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<User> findPage(int afterId, int limit, Set<UserField> fields) {
+        return delegate.findPage(afterId, limit, fields);
+    }
+
+    @Override
+    public void streamAll(Consumer<User> action) {
+        delegate.streamAll(action);
+    }
+
+    @Override
+    public List<UserSummary> findFriends(int userId) {
+        return delegate.findFriends(userId);
+    }
+
+    @Override
+    public List<UserSummary> findCommonFriends(int userId, int otherId) {
+        return delegate.findCommonFriends(userId, otherId);
+    }
+
+    @Override
+    public User update(int id, User newUser) {
+        User updated = delegate.update(id, newUser);
+        cache.invalidate(id);
+        return updated;
+    }
+
+    @Override
+    public boolean delete(int id) {
+        boolean deleted = delegate.delete(id);
+        // удалённый пользователь исчезает из чужих списков друзей, а обратных ссылок в кэше нет
+        cache.invalidateAll();
+        return deleted;
+    }
+
+    @Override
+    public boolean existsById(int id) {
+        return cache.contains(id) || delegate.existsById(id);
+    }
+
+    @Override
+    public boolean addFriendship(int userId, int friendId) {
+        boolean added = delegate.addFriendship(userId, friendId);
+        if (added) {
+            cache.invalidate(userId);
+            cache.invalidate(friendId);
+        }
+        return added;
+    }
+
+    @Override
+    public boolean removeFriendship(int userId, int friendId) {
+        boolean removed = delegate.removeFriendship(userId, friendId);
+        if (removed) {
+            cache.invalidate(userId);
+            cache.invalidate(friendId);
+        }
+        return removed;
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    private static User copy(User user) {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setEmail(user.getEmail());
+        copy.setLogin(user.getLogin());
+        copy.setName(user.getName());
+        copy.setBirthday(user.getBirthday());
+        copy.setFriends(IntHashSet.copyOf(user.getFriends()));
+        return copy;
+    }
+}
@@ -0,0 +1,195 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size-bounded LRU cache with a time-to-live per entry. Keys are split between up to 16 segments, each an
+ * LRU map with its own lock, so reads of different keys rarely wait for each other; with a small size limit
+ * there is a single segment and the order is exact. Expired entries are dropped on access and counted as
+ * evictions together with entries pushed out by the size limit.
+ */
+public class LruCache<K, V> {
+
+    private static final int MAX_SEGMENTS = 16;
+    private static final int MIN_SEGMENT_SIZE = 64;
+    private static final int MIN_PRUNE_THRESHOLD = 64;
+
+    private final long ttlNanos;
+    private final Segment<K, V>[] segments;
+    // строго возрастающие отметки времени: загрузка и инвалидация не могут получить одинаковую
+    private final AtomicLong lastTick = new AtomicLong(System.nanoTime());
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    public LruCache(int maxSize, Duration ttl) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        this.ttlNanos = ttl.toNanos();
+        int count = 1;
+        while (count < MAX_SEGMENTS && maxSize / (count * 2) >= MIN_SEGMENT_SIZE) {
+            count <<= 1;
+        }
+        this.segments = new Segment[count];
+        int segmentSize = (maxSize + count - 1) / count;
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment<>(segmentSize, evictions, tick());
+        }
+    }
+
+    public V get(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            CachedValue<V> entry = segment.entries.get(key);
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            if (System.nanoTime() - entry.createdAt > ttlNanos) {
+                segment.entries.remove(key);
+                evictions.increment();
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.value;
+        }
+    }
+
+    public boolean contains(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            CachedValue<V> entry = segment.entries.get(key);
+            return entry != null && System.nanoTime() - entry.createdAt <= ttlNanos;
+        }
+    }
+
+    public void put(K key, V value) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.entries.put(key, new CachedValue<>(value, System.nanoTime()));
+        }
+    }
+
+    /**
+     * Returns a stamp to pass to {@link #putIfFresh} after a value has been loaded from the database.
+     * Take it before the load starts.
+     */
+    public long stamp() {
+        return tick();
+    }
+
+    /**
+     * Stores the value only if its key has not been invalidated since {@code stamp} was taken,
+     * so a slow load can't put back a value that a concurrent write already made stale.
+     * Invalidations of other keys don't affect it.
+     */
+    public void putIfFresh(K key, V value, long stamp) {
+        long now = System.nanoTime();
+        // об инвалидациях старше ttl уже не помним, такую загрузку проверить нечем
+        if (now - stamp > ttlNanos) {
+            return;
+        }
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            if (stamp - segment.clearedAt <= 0) {
+                return;
+            }
+            Long invalidatedAt = segment.invalidatedAt.get(key);
+            if (invalidatedAt != null && stamp - invalidatedAt <= 0) {
+                return;
+            }
+            segment.entries.put(key, new CachedValue<>(value, now));
+        }
+    }
+
+    public void invalidate(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.entries.remove(key);
+            segment.invalidatedAt.put(key, tick());
+            segment.pruneInvalidations(ttlNanos);
+        }
+    }
+
+    public void invalidateAll() {
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.entries.clear();
+                segment.invalidatedAt.clear();
+                segment.clearedAt = tick();
+            }
+        }
+    }
+
+    public CacheStats stats() {
+        long size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.entries.size();
+            }
+        }
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), size);
+    }
+
+    private long tick() {
+        return lastTick.updateAndGet(last -> {
+            long now = System.nanoTime();
+            return now - last > 0 ? now : last + 1;
+        });
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return segments[(h ^ (h >>> 16)) & (segments.length - 1)];
+    }
+
+    // все поля сегмента читаются и меняются только под его монитором
+    private static final class Segment<K, V> {
+        private final LinkedHashMap<K, CachedValue<V>> entries;
+        private final Map<K, Long> invalidatedAt = new HashMap<>();
+        private long clearedAt;
+        private int pruneThreshold = MIN_PRUNE_THRESHOLD;
+
+        private Segment(int maxSize, LongAdder evictions, long createdAt) {
+            this.clearedAt = createdAt;
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, CachedValue<V>> eldest) {
+                    if (size() > maxSize) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        private void pruneInvalidations(long ttlNanos) {
+            if (invalidatedAt.size() < pruneThreshold) {
+                return;
+            }
+            long now = System.nanoTime();
+            invalidatedAt.values().removeIf(at -> now - at > ttlNanos);
+            pruneThreshold = Math.max(MIN_PRUNE_THRESHOLD, invalidatedAt.size() * 2);
+        }
+    }
+
+    private static final class CachedValue<V> {
+        private final V value;
+        private final long createdAt;
+
+        private CachedValue(V value, long createdAt) {
+            this.value = value;
+            this.createdAt = createdAt;
+        }
+    }
+}
@@ -1,8 +1,14 @@
 package ru.yandex.practicum.filmorate.storage.interfaces;
 
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmField;
+import ru.yandex.practicum.filmorate.model.IntHashSet;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface FilmStorage {
 
@@ -12,7 +18,32 @@ public interface FilmStorage {
 
     List<Film> findAll();
 
+    List<Film> findPage(int afterId, int limit, Set<FilmField> fields);
+
+    void streamAll(Consumer<Film> action);
+
+    List<Film> findByIds(Collection<Integer> ids);
+
+    List<Film> findPopular(int count, Integer genreId, Integer year);
+
+    Map<Integer, Integer> findLikeCounts();
+
+    Map<Integer, IntHashSet> findLikes(Collection<Integer> filmIds);
+
+    List<Integer> findLikesPage(int filmId, int afterUserId, int limit);
+
     Film update(int id, Film newFilm);
 
     boolean delete(int id);
+
+    boolean existsById(int id);
+
+    boolean addLike(int filmId, int userId);
+
+    boolean removeLike(int filmId, int userId);
+
+    /**
+     * Removes every like of the user and returns the ids of the films that lost one.
+     */
+    List<Integer> removeLikesBy(int userId);
 }
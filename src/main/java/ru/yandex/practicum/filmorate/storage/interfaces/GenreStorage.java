@@ -14,4 +14,9 @@ public interface GenreStorage {
     Genre update(int id, Genre newGenre);
 
     boolean delete(int id);
+
+    /**
+     * Rereads the catalog, e.g. after rows were added to the table without going through this storage.
+     */
+    void refresh();
 }
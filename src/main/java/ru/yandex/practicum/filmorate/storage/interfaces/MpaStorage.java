@@ -15,4 +15,9 @@ public interface MpaStorage {
     Mpa update(int id, Mpa newMpa);
 
     boolean delete(int id);
+
+    /**
+     * Rereads the catalog, e.g. after rows were added to the table without going through this storage.
+     */
+    void refresh();
 }
@@ -1,8 +1,12 @@
 package ru.yandex.practicum.filmorate.storage.interfaces;
 
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserField;
+import ru.yandex.practicum.filmorate.model.UserSummary;
 
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface UserStorage {
 
@@ -12,7 +16,21 @@ public interface UserStorage {
 
     List<User> findAll();
 
+    List<User> findPage(int afterId, int limit, Set<UserField> fields);
+
+    void streamAll(Consumer<User> action);
+
+    List<UserSummary> findFriends(int userId);
+
+    List<UserSummary> findCommonFriends(int userId, int otherId);
+
     User update(int id, User newUser);
 
     boolean delete(int id);
+
+    boolean existsById(int id);
+
+    boolean addFriendship(int userId, int friendId);
+
+    boolean removeFriendship(int userId, int friendId);
 }
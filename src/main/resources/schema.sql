@@ -17,9 +17,12 @@ CREATE TABLE IF NOT EXISTS films
 	description varchar(500),
 	release_date date NOT NULL,
 	duration int NOT NULL,
-	mpa_id int REFERENCES mpa(id)
+	mpa_id int REFERENCES mpa(id),
+	like_count int NOT NULL DEFAULT 0
 );
 
+CREATE INDEX IF NOT EXISTS films_like_count_idx ON films (like_count DESC, id);
+
 CREATE TABLE IF NOT EXISTS film_genre
 (
 	id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
@@ -40,12 +43,14 @@ CREATE TABLE IF NOT EXISTS friendships
 (
 	id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
 	user_id int REFERENCES users(id) ON DELETE CASCADE,
-	friend_id int REFERENCES users(id) ON DELETE CASCADE
+	friend_id int REFERENCES users(id) ON DELETE CASCADE,
+	UNIQUE (user_id, friend_id)
 );
 
 CREATE TABLE IF NOT EXISTS likes
 (
 	id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
 	user_id int REFERENCES users(id) ON DELETE CASCADE,
-	film_id int REFERENCES films(id) ON DELETE CASCADE
+	film_id int REFERENCES films(id) ON DELETE CASCADE,
+	UNIQUE (film_id, user_id)
 );
\ No newline at end of file
@@ -0,0 +1,69 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.IntHashSet;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.MpaDbStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+/**
+ * Compares one INSERT per like with the batched writes of {@link FilmDbStorage#create(Film)}.
+ * Run with {@code mvn test -P benchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@JdbcTest
+public class BatchWriteBenchmark {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @ParameterizedTest
+    @ValueSource(ints = {10, 1_000, 100_000})
+    public void perRowVersusBatchedLikes(int likes) {
+        List<Integer> userIds = BenchmarkSupport.seedUsers(jdbcTemplate, likes);
+        List<Integer> filmIds = BenchmarkSupport.seedFilms(jdbcTemplate, 1);
+        int perRowFilmId = filmIds.get(0);
+
+        long perRowStart = System.nanoTime();
+        for (Integer userId : userIds) {
+            jdbcTemplate.update("INSERT INTO likes (user_id, film_id) VALUES (?, ?)", userId, perRowFilmId);
+        }
+        long perRowNanos = System.nanoTime() - perRowStart;
+
+        FilmDbStorage storage = new FilmDbStorage(jdbcTemplate, new GenreDbStorage(jdbcTemplate),
+                new MpaDbStorage(jdbcTemplate), new SimpleMeterRegistry());
+        Film film = new Film();
+        film.setName("Batched");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        film.setMpa(new Mpa(1, "G"));
+        film.setLikes(IntHashSet.copyOf(userIds));
+
+        long batchedStart = System.nanoTime();
+        storage.create(film);
+        long batchedNanos = System.nanoTime() - batchedStart;
+
+        log.info("likes={} | per-row: {} ms | batched: {} ms", likes,
+                perRowNanos / 1_000_000, batchedNanos / 1_000_000);
+
+        Integer stored = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM likes WHERE film_id = ?",
+                Integer.class, film.getId());
+        assertThat(stored).isEqualTo(likes);
+    }
+}
@@ -0,0 +1,78 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+final class BenchmarkSupport {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private BenchmarkSupport() {
+    }
+
+    static long allocatedBytes(Runnable action) {
+        long threadId = Thread.currentThread().getId();
+        long before = THREADS.getThreadAllocatedBytes(threadId);
+        action.run();
+        return THREADS.getThreadAllocatedBytes(threadId) - before;
+    }
+
+    static long averageAllocatedBytes(int warmups, int iterations, Runnable action) {
+        for (int i = 0; i < warmups; i++) {
+            action.run();
+        }
+        long total = 0;
+        for (int i = 0; i < iterations; i++) {
+            total += allocatedBytes(action);
+        }
+        return total / iterations;
+    }
+
+    static long averageNanos(int warmups, int iterations, Runnable action) {
+        for (int i = 0; i < warmups; i++) {
+            action.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            action.run();
+        }
+        return (System.nanoTime() - start) / iterations;
+    }
+
+    static List<Integer> seedUsers(JdbcTemplate jdbcTemplate, int count) {
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(new Object[]{"user" + i + "@bench.local", "user" + i, "User " + i,
+                    Date.valueOf(LocalDate.of(1990, 1, 1))});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)", rows);
+        return jdbcTemplate.queryForList("SELECT id FROM users ORDER BY id DESC LIMIT ?", Integer.class, count);
+    }
+
+    static List<Integer> seedFilms(JdbcTemplate jdbcTemplate, int count) {
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(new Object[]{"Film " + i, "Benchmark film", Date.valueOf(LocalDate.of(2000, 1, 1)), 100,
+                    i % 5 + 1});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO films (name, description, release_date, duration, mpa_id) " +
+                "VALUES (?, ?, ?, ?, ?)", rows);
+        return jdbcTemplate.queryForList("SELECT id FROM films ORDER BY id DESC LIMIT ?", Integer.class, count);
+    }
+
+    static void seedGenres(JdbcTemplate jdbcTemplate, List<Integer> filmIds, int genresPerFilm) {
+        List<Object[]> rows = new ArrayList<>();
+        for (Integer filmId : filmIds) {
+            for (int genreId = 1; genreId <= genresPerFilm; genreId++) {
+                rows.add(new Object[]{filmId, genreId});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO film_genre (film_id, genre_id) VALUES (?, ?)", rows);
+    }
+}
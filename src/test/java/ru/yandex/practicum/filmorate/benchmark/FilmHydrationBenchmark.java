@@ -0,0 +1,85 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.TransactionAwareDataSourceProxy;
+import ru.yandex.practicum.filmorate.metrics.QueryCounter;
+import ru.yandex.practicum.filmorate.metrics.QueryCountingDataSource;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.FilmHydration;
+import ru.yandex.practicum.filmorate.storage.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.MpaDbStorage;
+
+import java.util.List;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+/**
+ * Compares JOIN and MULTI_QUERY hydration of {@link FilmDbStorage#findAll()}
+ * while the number of genres per film grows. Statements and rows are the ones each strategy
+ * actually fetched, counted by {@link QueryCountingDataSource}. Run with {@code mvn test -P benchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@JdbcTest
+public class FilmHydrationBenchmark {
+
+    private static final int FILMS = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 3, 6})
+    public void findAllRowsAndAllocation(int genresPerFilm) {
+        List<Integer> filmIds = BenchmarkSupport.seedFilms(jdbcTemplate, FILMS);
+        BenchmarkSupport.seedGenres(jdbcTemplate, filmIds, genresPerFilm);
+
+        // прокси над транзакционным соединением теста, иначе засеянные строки не видны
+        JdbcTemplate countingTemplate = new JdbcTemplate(new QueryCountingDataSource(
+                new TransactionAwareDataSourceProxy(jdbcTemplate.getDataSource())));
+        FilmDbStorage storage = new FilmDbStorage(countingTemplate, new GenreDbStorage(countingTemplate),
+                new MpaDbStorage(countingTemplate), new SimpleMeterRegistry());
+        storage.setHydration(FilmHydration.JOIN);
+        // первый вызов загружает справочники, считаем только следующий
+        List<Film> joined = storage.findAll();
+        QueryCounter joinQueries = count(storage::findAll);
+        long joinBytes = BenchmarkSupport.averageAllocatedBytes(2, 5, storage::findAll);
+        long joinNanos = BenchmarkSupport.averageNanos(2, 5, storage::findAll);
+
+        storage.setHydration(FilmHydration.MULTI_QUERY);
+        List<Film> stitched = storage.findAll();
+        QueryCounter multiQueryQueries = count(storage::findAll);
+        long multiQueryBytes = BenchmarkSupport.averageAllocatedBytes(2, 5, storage::findAll);
+        long multiQueryNanos = BenchmarkSupport.averageNanos(2, 5, storage::findAll);
+
+        log.info("genres/film={} | JOIN: statements={}, rows={}, alloc={} KB, time={} ms | MULTI_QUERY: " +
+                        "statements={}, rows={}, alloc={} KB, time={} ms", genresPerFilm,
+                joinQueries.getStatements(), joinQueries.getRows(), joinBytes / 1024, joinNanos / 1_000_000,
+                multiQueryQueries.getStatements(), multiQueryQueries.getRows(), multiQueryBytes / 1024,
+                multiQueryNanos / 1_000_000);
+
+        assertThat(stitched).usingRecursiveComparison().isEqualTo(joined);
+        // JOIN отдаёт строку на пару фильм-жанр (или одну на фильм без жанров), MULTI_QUERY — фильмы плюс их жанры
+        assertThat(joinQueries.getRows()).isEqualTo((long) FILMS * Math.max(1, genresPerFilm));
+        assertThat(multiQueryQueries.getRows()).isEqualTo((long) FILMS + (long) FILMS * genresPerFilm);
+    }
+
+    private static QueryCounter count(Runnable action) {
+        QueryCounter counter = QueryCounter.start();
+        try {
+            action.run();
+        } finally {
+            QueryCounter.stop();
+        }
+        return counter;
+    }
+}
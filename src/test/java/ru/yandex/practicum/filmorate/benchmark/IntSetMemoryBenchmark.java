@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import ru.yandex.practicum.filmorate.model.IntHashSet;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+/**
+ * Bytes allocated per like id when a film's likes are held in a {@code HashSet<Integer>}
+ * versus an {@link IntHashSet}. Run with {@code mvn test -P benchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+public class IntSetMemoryBenchmark {
+
+    private static final int FILMS = 100;
+    // id выше кэша Integer, чтобы упаковка действительно выделяла память, как для реальных пользователей
+    private static final int FIRST_USER_ID = 1_000;
+
+    @ParameterizedTest
+    @ValueSource(ints = {10, 1_000, 100_000})
+    public void bytesPerLike(int likesPerFilm) {
+        List<Set<Integer>> boxed = new ArrayList<>(FILMS);
+        long boxedBytes = BenchmarkSupport.allocatedBytes(() -> {
+            for (int film = 0; film < FILMS; film++) {
+                Set<Integer> likes = new HashSet<>();
+                for (int i = 0; i < likesPerFilm; i++) {
+                    likes.add(FIRST_USER_ID + i);
+                }
+                boxed.add(likes);
+            }
+        });
+
+        List<IntHashSet> primitive = new ArrayList<>(FILMS);
+        long primitiveBytes = BenchmarkSupport.allocatedBytes(() -> {
+            for (int film = 0; film < FILMS; film++) {
+                IntHashSet likes = new IntHashSet();
+                for (int i = 0; i < likesPerFilm; i++) {
+                    likes.addInt(FIRST_USER_ID + i);
+                }
+                primitive.add(likes);
+            }
+        });
+
+        long likes = (long) FILMS * likesPerFilm;
+        log.info("likes/film={} | HashSet<Integer>: {} bytes/like | IntHashSet: {} bytes/like", likesPerFilm,
+                boxedBytes / likes, primitiveBytes / likes);
+
+        assertThat(primitive.get(0)).isEqualTo(boxed.get(0));
+        assertThat(primitiveBytes).isLessThan(boxedBytes);
+    }
+}
@@ -0,0 +1,102 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.MpaDbStorage;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+/**
+ * Allocation of {@link FilmDbStorage#findAll()} over 100k films when genres and MPA ratings are
+ * shared catalog instances, compared with copying them for every row as the storages used to.
+ * Run with {@code mvn test -P benchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@JdbcTest
+public class ReferenceSharingBenchmark {
+
+    private static final int FILMS = 100_000;
+    private static final int GENRES_PER_FILM = 2;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void findAllAllocation() {
+        List<Integer> filmIds = BenchmarkSupport.seedFilms(jdbcTemplate, FILMS);
+        BenchmarkSupport.seedGenres(jdbcTemplate, filmIds, GENRES_PER_FILM);
+
+        FilmDbStorage copying = new FilmDbStorage(jdbcTemplate, new CopyingGenreStorage(jdbcTemplate),
+                new CopyingMpaStorage(jdbcTemplate), new SimpleMeterRegistry());
+        long copyingBytes = BenchmarkSupport.averageAllocatedBytes(1, 3, copying::findAll);
+        long copyingNanos = BenchmarkSupport.averageNanos(1, 3, copying::findAll);
+
+        FilmDbStorage sharing = new FilmDbStorage(jdbcTemplate, new GenreDbStorage(jdbcTemplate),
+                new MpaDbStorage(jdbcTemplate), new SimpleMeterRegistry());
+        long sharingBytes = BenchmarkSupport.averageAllocatedBytes(1, 3, sharing::findAll);
+        long sharingNanos = BenchmarkSupport.averageNanos(1, 3, sharing::findAll);
+
+        List<Film> films = sharing.findAll();
+        Set<Genre> genres = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<Mpa> ratings = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Film film : films) {
+            genres.addAll(film.getGenres());
+            ratings.add(film.getMpa());
+        }
+
+        log.info("films={} | copying: {} B/film, time={} ms | sharing: {} B/film, time={} ms | " +
+                        "distinct genres={}, ratings={}", FILMS,
+                copyingBytes / FILMS, copyingNanos / 1_000_000,
+                sharingBytes / FILMS, sharingNanos / 1_000_000,
+                genres.size(), ratings.size());
+
+        assertThat(films.size()).isEqualTo(FILMS);
+        assertThat(genres.size()).isEqualTo(GENRES_PER_FILM);
+        assertThat(ratings.size()).isEqualTo(5);
+        assertThat(sharingBytes).isLessThan(copyingBytes);
+    }
+
+    // прежнее поведение: каждый фильм получал свою копию жанра и рейтинга
+    private static class CopyingGenreStorage extends GenreDbStorage {
+
+        CopyingGenreStorage(JdbcTemplate jdbcTemplate) {
+            super(jdbcTemplate);
+        }
+
+        @Override
+        public Genre findById(int id) {
+            Genre shared = super.findById(id);
+            return new Genre(shared.getId(), shared.getName());
+        }
+    }
+
+    private static class CopyingMpaStorage extends MpaDbStorage {
+
+        CopyingMpaStorage(JdbcTemplate jdbcTemplate) {
+            super(jdbcTemplate);
+        }
+
+        @Override
+        public Mpa findById(int id) {
+            Mpa shared = super.findById(id);
+            return new Mpa(shared.getId(), shared.getName());
+        }
+    }
+}
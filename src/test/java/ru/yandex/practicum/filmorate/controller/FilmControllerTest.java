@@ -1,8 +1,11 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
@@ -13,11 +16,16 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @ExtendWith(SpringExtension.class)
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMetrics
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "filmorate.sql-stats.enabled=true")
 public class FilmControllerTest {
     private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final ObjectMapper objectMapper = new ObjectMapper();
 
     @LocalServerPort
     private int port;
@@ -182,4 +190,284 @@ public class FilmControllerTest {
         HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(200, response.statusCode());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGetFilmsPageReturnsNextCursor() throws Exception {
+        String validFilm = "{\n"
+                + "  \"name\": \"Test Film\",\n"
+                + "  \"description\": \"A test film description\",\n"
+                + "  \"releaseDate\": \"2000-01-01\",\n"
+                + "  \"duration\": 120\n"
+                + "}";
+        for (int i = 0; i < 2; i++) {
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(new URI(baseUrl + "/films"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(validFilm))
+                    .build();
+            httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        }
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl + "/films?limit=1"))
+                .GET()
+                .build();
+
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("X-Next-Cursor").isPresent());
+
+        HttpRequest invalidRequest = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl + "/films?limit=0"))
+                .GET()
+                .build();
+
+        HttpResponse<String> invalidResponse = httpClient.send(invalidRequest, HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, invalidResponse.statusCode());
+    }
+
+    @Test
+    public void testLikesAreReturnedOnlyWhenIncluded() throws Exception {
+        String validUser = "{\n"
+                + "  \"email\": \"liker@example.com\",\n"
+                + "  \"login\": \"liker\",\n"
+                + "  \"birthday\": \"1990-01-01\"\n"
+                + "}";
+        HttpRequest userRequest = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl + "/users"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(validUser))
+                .build();
+        int userId = objectMapper.readTree(httpClient.send(userRequest, HttpResponse.BodyHandlers.ofString()).body())
+                .get("id").asInt();
+
+        String validFilm = "{\n"
+                + "  \"name\": \"Liked Film\",\n"
+                + "  \"description\": \"A test film description\",\n"
+                + "  \"releaseDate\": \"2000-01-01\",\n"
+                + "  \"duration\": 120,\n"
+                + "  \"mpa\": { \"id\": 1 }\n"
+                + "}";
+        HttpRequest filmRequest = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl + "/films"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(validFilm))
+                .build();
+        int filmId = objectMapper.readTree(httpClient.send(filmRequest, HttpResponse.BodyHandlers.ofString()).body())
+                .get("id").asInt();
+
+        HttpRequest likeRequest = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl + "/films/" + filmId + "/like/" + userId))
+                .PUT(HttpRequest.BodyPublishers.noBody())
+                .build();
+        httpClient.send(likeRequest, HttpResponse.BodyHandlers.ofString());
+
+        JsonNode film = getJson("/films/" + filmId);
+        assertEquals(1, film.get("likeCount").asInt());
+        assertFalse(film.has("likes"));
+
+        JsonNode filmWithLikes = getJson("/films/" + filmId + "?include=likes");
+        assertEquals(userId, filmWithLikes.get("likes").get(0).asInt());
+
+        JsonNode likes = getJson("/films/" + filmId + "/likes?limit=10");
+        assertEquals(1, likes.size());
+        assertEquals(userId, likes.get(0).asInt());
+
+        // выгрузка — полный дамп и отдаёт лайки без include
+        HttpResponse<String> export = send("GET", "/films/export");
+        JsonNode exported = null;
+        for (String line : export.body().split("\n")) {
+            JsonNode node = objectMapper.readTree(line);
+            if (node.get("id").asInt() == filmId) {
+                exported = node;
+            }
+        }
+        assertEquals(userId, exported.get("likes").get(0).asInt());
+
+        HttpRequest unknownInclude = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl + "/films/" + filmId + "?include=reviews"))
+                .GET()
+                .build();
+        assertEquals(400, httpClient.send(unknownInclude, HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    private JsonNode getJson(String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl + path))
+                .GET()
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        return objectMapper.readTree(response.body());
+    }
+
+    @Test
+    public void testGetFilmsWithSparseFields() throws Exception {
+        String validFilm = "{\n"
+                + "  \"name\": \"Sparse Film\",\n"
+                + "  \"description\": \"A test film description\",\n"
+                + "  \"releaseDate\": \"2000-01-01\",\n"
+                + "  \"duration\": 120\n"
+                + "}";
+        HttpRequest createRequest = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl + "/films"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(validFilm))
+                .build();
+        httpClient.send(createRequest, HttpResponse.BodyHandlers.ofString());
+
+        JsonNode film = getJson("/films?fields=name&limit=1").get(0);
+        assertTrue(film.has("id"));
+        assertTrue(film.has("name"));
+        assertFalse(film.has("description"));
+        assertFalse(film.has("genres"));
+
+        JsonNode fullFilm = getJson("/films?limit=1").get(0);
+        assertTrue(fullFilm.has("description"));
+
+        HttpRequest unknownField = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl + "/films?fields=budget"))
+                .GET()
+                .build();
+        assertEquals(400, httpClient.send(unknownField, HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    @Test
+    public void testOperationTimersExposedForPrometheus() throws Exception {
+        HttpRequest popular = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl + "/films/popular?count=5"))
+                .GET()
+                .build();
+        assertEquals(200, httpClient.send(popular, HttpResponse.BodyHandlers.ofString()).statusCode());
+        HttpRequest missing = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl + "/films/999999"))
+                .GET()
+                .build();
+        assertEquals(404, httpClient.send(missing, HttpResponse.BodyHandlers.ofString()).statusCode());
+
+        HttpRequest scrape = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl + "/actuator/prometheus"))
+                .GET()
+                .build();
+        String metrics = httpClient.send(scrape, HttpResponse.BodyHandlers.ofString()).body();
+        assertTrue(metrics.contains("filmorate_service_seconds_count{"));
+        assertTrue(metrics.contains("method=\"findPopularFilms\",outcome=\"success\""));
+        assertTrue(metrics.contains("method=\"findFilmById\",outcome=\"client_error\""));
+        assertTrue(metrics.contains("filmorate_storage_seconds_bucket{"));
+        assertFalse(metrics.contains("filmorate_service_seconds_bucket{"));
+        assertTrue(metrics.contains("filmorate_storage_rows_read_total{"));
+    }
+
+    @Test
+    public void testQueryBudgets() throws Exception {
+        String validUser = "{\n"
+                + "  \"email\": \"budget@example.com\",\n"
+                + "  \"login\": \"budget\",\n"
+                + "  \"birthday\": \"1990-01-01\"\n"
+                + "}";
+        HttpRequest userRequest = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl + "/users"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(validUser))
+                .build();
+        int userId = objectMapper.readTree(httpClient.send(userRequest, HttpResponse.BodyHandlers.ofString()).body())
+                .get("id").asInt();
+        int filmId = 0;
+        for (int i = 0; i < 12; i++) {
+            String validFilm = "{\n"
+                    + "  \"name\": \"Budget Film " + i + "\",\n"
+                    + "  \"description\": \"A test film description\",\n"
+                    + "  \"releaseDate\": \"2000-01-01\",\n"
+                    + "  \"duration\": 120,\n"
+                    + "  \"mpa\": { \"id\": 1 },\n"
+                    + "  \"genres\": [{ \"id\": 1 }, { \"id\": 2 }]\n"
+                    + "}";
+            HttpRequest filmRequest = HttpRequest.newBuilder()
+                    .uri(new URI(baseUrl + "/films"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(validFilm))
+                    .build();
+            filmId = objectMapper.readTree(httpClient.send(filmRequest, HttpResponse.BodyHandlers.ofString())
+                    .body()).get("id").asInt();
+        }
+
+        // существование пользователя и фильма, MERGE лайка и счётчик
+        QueryBudget.assertAtMost(4, send("PUT", "/films/" + filmId + "/like/" + userId));
+        // фильмы и жанры одним запросом каждые, сколько бы фильмов ни было в выдаче
+        QueryBudget.assertAtMost(2, send("GET", "/films/popular?count=10"));
+        QueryBudget.assertAtMost(2, send("GET", "/films/" + filmId));
+        QueryBudget.assertAtMost(2, send("GET", "/films?limit=10"));
+    }
+
+    @Test
+    public void testDeletingUserUpdatesLikedFilms() throws Exception {
+        int first = createFilm("Liked by deleted users");
+        int second = createFilm("Liked by a remaining user");
+        int deleted1 = createUser("deleted1");
+        int deleted2 = createUser("deleted2");
+        int remaining = createUser("remaining");
+        send("PUT", "/films/" + first + "/like/" + deleted1);
+        send("PUT", "/films/" + first + "/like/" + deleted2);
+        send("PUT", "/films/" + second + "/like/" + remaining);
+        assertEquals(2, getJson("/films/" + first).get("likeCount").asInt());
+        assertTrue(popularPosition(first) < popularPosition(second));
+
+        send("DELETE", "/users/" + deleted1);
+        send("DELETE", "/users/" + deleted2);
+
+        assertEquals(0, getJson("/films/" + first).get("likeCount").asInt());
+        assertTrue(popularPosition(second) < popularPosition(first));
+    }
+
+    private int popularPosition(int filmId) throws Exception {
+        JsonNode popular = getJson("/films/popular?count=1000");
+        for (int i = 0; i < popular.size(); i++) {
+            if (popular.get(i).get("id").asInt() == filmId) {
+                return i;
+            }
+        }
+        return Integer.MAX_VALUE;
+    }
+
+    private int createFilm(String name) throws Exception {
+        String film = "{\n"
+                + "  \"name\": \"" + name + "\",\n"
+                + "  \"description\": \"A test film description\",\n"
+                + "  \"releaseDate\": \"2000-01-01\",\n"
+                + "  \"duration\": 120,\n"
+                + "  \"mpa\": { \"id\": 1 }\n"
+                + "}";
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl + "/films"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(film))
+                .build();
+        return objectMapper.readTree(httpClient.send(request, HttpResponse.BodyHandlers.ofString()).body())
+                .get("id").asInt();
+    }
+
+    private int createUser(String login) throws Exception {
+        String user = "{\n"
+                + "  \"login\": \"" + login + "\",\n"
+                + "  \"email\": \"" + login + "@email.com\",\n"
+                + "  \"birthday\": \"1977-07-07\"\n"
+                + "}";
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl + "/users"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(user))
+                .build();
+        return objectMapper.readTree(httpClient.send(request, HttpResponse.BodyHandlers.ofString()).body())
+                .get("id").asInt();
+    }
+
+    private HttpResponse<String> send(String method, String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl + path))
+                .method(method, HttpRequest.BodyPublishers.noBody())
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        return response;
+    }
+}
@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import ru.yandex.practicum.filmorate.metrics.QueryCountingFilter;
+
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Asserts on the SQL statement count that {@link QueryCountingFilter} reports for a response, so an
+ * endpoint that starts issuing a query per item fails its test.
+ */
+final class QueryBudget {
+
+    private QueryBudget() {
+    }
+
+    static int statements(HttpResponse<?> response) {
+        return Integer.parseInt(response.headers().firstValue(QueryCountingFilter.STATEMENTS_HEADER)
+                .orElseThrow(() -> new AssertionError("No " + QueryCountingFilter.STATEMENTS_HEADER + " header")));
+    }
+
+    static void assertAtMost(int budget, HttpResponse<?> response) {
+        int statements = statements(response);
+        assertTrue(statements <= budget, () -> response.request().method() + " " + response.request().uri()
+                + " issued " + statements + " SQL statements, budget is " + budget);
+    }
+}
@@ -1,5 +1,6 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -15,9 +16,11 @@ import java.net.http.HttpResponse;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 @ExtendWith(SpringExtension.class)
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "filmorate.sql-stats.enabled=true")
 public class UserControllerTest {
     private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final ObjectMapper objectMapper = new ObjectMapper();
 
     @LocalServerPort
     private int port;
@@ -196,4 +199,46 @@ public class UserControllerTest {
         HttpResponse<String> response = httpClient.send(request1, HttpResponse.BodyHandlers.ofString());
         assertEquals(200, response.statusCode());
     }
+
+    @Test
+    public void testFriendQueryBudgets() throws Exception {
+        int userId = createUser("budgetOwner");
+        int otherId = createUser("budgetOther");
+        for (int i = 0; i < 6; i++) {
+            int friendId = createUser("budgetFriend" + i);
+            // оба пользователя проверяются на существование, затем MERGE
+            QueryBudget.assertAtMost(3, send("PUT", "/users/" + userId + "/friends/" + friendId));
+            send("PUT", "/users/" + otherId + "/friends/" + friendId);
+        }
+
+        // проверка существования пользователей и один запрос со списком, а не запрос на друга
+        QueryBudget.assertAtMost(2, send("GET", "/users/" + userId + "/friends"));
+        QueryBudget.assertAtMost(3, send("GET", "/users/" + userId + "/friends/common/" + otherId));
+        QueryBudget.assertAtMost(2, send("GET", "/users?limit=10"));
+    }
+
+    private int createUser(String login) throws Exception {
+        String user = "{\n"
+                + "  \"login\": \"" + login + "\",\n"
+                + "  \"email\": \"" + login + "@email.com\",\n"
+                + "  \"birthday\": \"1977-07-07\"\n"
+                + "}";
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl + "/users"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(user))
+                .build();
+        return objectMapper.readTree(httpClient.send(request, HttpResponse.BodyHandlers.ofString()).body())
+                .get("id").asInt();
+    }
+
+    private HttpResponse<String> send(String method, String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(new URI(baseUrl + path))
+                .method(method, HttpRequest.BodyPublishers.noBody())
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        return response;
+    }
 }
@@ -0,0 +1,77 @@
+package ru.yandex.practicum.filmorate.datagen;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@JdbcTest
+public class DatasetGeneratorTest {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void testGenerateWritesRequestedRowsWithConsistentLikeCounts() {
+        DatasetSpec spec = new DatasetSpec();
+        spec.setFilms(200);
+        spec.setUsers(100);
+        spec.setLikes(3_000);
+        spec.setFriendships(1_000);
+        spec.setBatchSize(128);
+
+        Dataset dataset = new DatasetGenerator(jdbcTemplate).generate(spec);
+
+        assertThat(dataset.getFilmIds().length).isEqualTo(200);
+        assertThat(dataset.getUserIds().length).isEqualTo(100);
+        assertThat(dataset.getLikes()).isEqualTo(3_000L);
+        assertThat(dataset.getFriendships()).isEqualTo(1_000L);
+        assertThat(count("SELECT COUNT(*) FROM likes")).isEqualTo(3_000L);
+        assertThat(count("SELECT COUNT(*) FROM friendships")).isEqualTo(1_000L);
+        assertThat(count("SELECT SUM(like_count) FROM films")).isEqualTo(3_000L);
+        assertThat(count("SELECT COUNT(*) FROM films f " +
+                "WHERE like_count <> (SELECT COUNT(*) FROM likes l WHERE l.film_id = f.id)")).isEqualTo(0L);
+        assertThat(count("SELECT COUNT(*) FROM friendships WHERE user_id = friend_id")).isEqualTo(0L);
+        assertThat(count("SELECT COUNT(*) FROM films f " +
+                "WHERE NOT EXISTS (SELECT 1 FROM film_genre fg WHERE fg.film_id = f.id)")).isEqualTo(0L);
+    }
+
+    @Test
+    public void testLikesAreSkewedTowardsPopularFilms() {
+        DatasetSpec spec = new DatasetSpec();
+        spec.setFilms(1_000);
+        spec.setUsers(1_000);
+        spec.setLikes(20_000);
+        spec.setFriendships(0);
+
+        new DatasetGenerator(jdbcTemplate).generate(spec);
+
+        List<Integer> counts = jdbcTemplate.queryForList(
+                "SELECT like_count FROM films ORDER BY like_count DESC", Integer.class);
+        int top = counts.get(0);
+        int median = counts.get(counts.size() / 2);
+        assertThat(top).isGreaterThan(median * 50);
+    }
+
+    @Test
+    public void testZipfCountsRespectTotalAndCap() {
+        int[] counts = DatasetGenerator.zipfCounts(10, 1_000, 1.0, 150);
+
+        long total = 0;
+        for (int count : counts) {
+            assertThat(count).isLessThanOrEqualTo(150);
+            total += count;
+        }
+        assertThat(total).isEqualTo(1_000L);
+        assertThat(counts[0]).isGreaterThanOrEqualTo(counts[9]);
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+}
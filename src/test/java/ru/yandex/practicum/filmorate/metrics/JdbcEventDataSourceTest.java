@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@JdbcTest
+public class JdbcEventDataSourceTest {
+
+    private final DataSource dataSource;
+
+    @Test
+    public void testStatementsRecordedAsJfrEvents(@TempDir Path dir) throws Exception {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new JdbcEventDataSource(dataSource));
+        Path file = dir.resolve("jdbc.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(JdbcEvent.class);
+            recording.start();
+            jdbcTemplate.queryForList("SELECT id FROM mpa WHERE id <= ?", Integer.class, 3);
+            jdbcTemplate.update("UPDATE genres SET name = name WHERE id <= ?", 2);
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                .filter(e -> e.getEventType().getName().equals("filmorate.Jdbc"))
+                .sorted(Comparator.comparing(RecordedEvent::getStartTime))
+                .collect(Collectors.toList());
+        assertThat(events.size()).isEqualTo(2);
+        assertThat(events.get(0).getString("sql")).isEqualTo("SELECT id FROM mpa WHERE id <= ?");
+        assertThat(events.get(0).getString("operation")).isEqualTo("executeQuery");
+        assertThat(events.get(1).getString("sql")).isEqualTo("UPDATE genres SET name = name WHERE id <= ?");
+        assertThat(events.get(1).getLong("rows")).isEqualTo(2L);
+    }
+}
@@ -0,0 +1,33 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@JdbcTest
+public class QueryCountingDataSourceTest {
+
+    private final DataSource dataSource;
+
+    @Test
+    public void testStatementsAndRowsCounted() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new QueryCountingDataSource(dataSource));
+        QueryCounter counter = QueryCounter.start();
+        try {
+            jdbcTemplate.queryForList("SELECT id FROM mpa WHERE id <= ?", Integer.class, 3);
+            jdbcTemplate.update("UPDATE genres SET name = name WHERE id <= ?", 2);
+        } finally {
+            QueryCounter.stop();
+        }
+
+        assertThat(counter.getStatements()).isEqualTo(2);
+        assertThat(counter.getRows()).isEqualTo(3L);
+    }
+}
@@ -0,0 +1,75 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+// настройки приложения по умолчанию: SQL не считается, JFR включён; каждый запрос считаем медленным
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"filmorate.jfr.enabled=true", "filmorate.jfr.dump-threshold=0ms"})
+public class SlowRequestDumperTest {
+
+    private static final Path DUMP_DIR = createDumpDir();
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void dumpDir(DynamicPropertyRegistry registry) {
+        registry.add("filmorate.jfr.dump-dir", DUMP_DIR::toString);
+    }
+
+    @Test
+    public void testDumpContainsJdbcEvents() throws Exception {
+        HttpResponse<String> response = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/films")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertThat(response.statusCode()).isEqualTo(200);
+
+        Path dump = awaitDump();
+        List<RecordedEvent> jdbcEvents = RecordingFile.readAllEvents(dump).stream()
+                .filter(e -> e.getEventType().getName().equals("filmorate.Jdbc"))
+                .collect(Collectors.toList());
+        assertThat(jdbcEvents.isEmpty()).isFalse();
+    }
+
+    // дамп пишется в отдельном потоке
+    private static Path awaitDump() throws IOException, InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            try (Stream<Path> files = Files.list(DUMP_DIR)) {
+                Optional<Path> dump = files.filter(f -> f.toString().endsWith(".jfr")).findFirst();
+                if (dump.isPresent() && Files.size(dump.get()) > 0) {
+                    return dump.get();
+                }
+            }
+            Thread.sleep(100);
+        }
+        throw new AssertionError("No JFR dump in " + DUMP_DIR);
+    }
+
+    private static Path createDumpDir() {
+        try {
+            return Files.createTempDirectory("filmorate-jfr");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package ru.yandex.practicum.filmorate.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+public class IntHashSetTest {
+
+    @Test
+    public void testBehavesLikeHashSet() {
+        Random random = new Random(42);
+        IntHashSet set = new IntHashSet();
+        Set<Integer> expected = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            int value = random.nextInt(300) - 5;
+            switch (random.nextInt(3)) {
+                case 0:
+                    assertThat(set.addInt(value)).isEqualTo(expected.add(value));
+                    break;
+                case 1:
+                    assertThat(set.removeInt(value)).isEqualTo(expected.remove(value));
+                    break;
+                default:
+                    assertThat(set.containsInt(value)).isEqualTo(expected.contains(value));
+            }
+            assertThat(set.size()).isEqualTo(expected.size());
+        }
+        assertThat(set).isEqualTo(expected);
+        assertThat(set.hashCode()).isEqualTo(expected.hashCode());
+    }
+
+    @Test
+    public void testIteratorVisitsEachElementOnceWhileRemoving() {
+        Random random = new Random(7);
+        for (int round = 0; round < 1_000; round++) {
+            IntHashSet set = new IntHashSet();
+            Set<Integer> expected = new HashSet<>();
+            int count = random.nextInt(50);
+            for (int i = 0; i < count; i++) {
+                int value = random.nextInt(100);
+                set.addInt(value);
+                expected.add(value);
+            }
+            Set<Integer> all = new HashSet<>(expected);
+
+            Set<Integer> visited = new HashSet<>();
+            Iterator<Integer> iterator = set.iterator();
+            while (iterator.hasNext()) {
+                Integer value = iterator.next();
+                assertThat(visited.add(value)).isTrue();
+                if (random.nextBoolean()) {
+                    iterator.remove();
+                    expected.remove(value);
+                }
+            }
+            assertThat(visited).isEqualTo(all);
+            assertThat(set).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void testJsonShapeIsAPlainArray() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        assertThat(objectMapper.writeValueAsString(IntHashSet.of(3, 1, 2))).isEqualTo("[1,2,3]");
+        assertThat(objectMapper.readValue("[5,4,5]", IntHashSet.class)).isEqualTo(Set.of(4, 5));
+
+        User user = objectMapper.readValue("{\"login\":\"jd\",\"friends\":[2,1]}", User.class);
+        assertThat(user.getFriends()).isEqualTo(Set.of(1, 2));
+    }
+}
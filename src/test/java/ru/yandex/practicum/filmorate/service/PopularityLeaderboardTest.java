@@ -0,0 +1,113 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.MpaDbStorage;
+import ru.yandex.practicum.filmorate.storage.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@JdbcTest
+public class PopularityLeaderboardTest {
+
+    private final JdbcTemplate jdbcTemplate;
+    private FilmDbStorage filmDbStorage;
+    private UserDbStorage userDbStorage;
+
+    @BeforeEach
+    public void setUp() {
+        filmDbStorage = new FilmDbStorage(jdbcTemplate, new GenreDbStorage(jdbcTemplate),
+                new MpaDbStorage(jdbcTemplate), new SimpleMeterRegistry());
+        userDbStorage = new UserDbStorage(jdbcTemplate, new SimpleMeterRegistry());
+    }
+
+    @Test
+    public void testLoadedRankingMatchesDatabase() {
+        int first = createFilm("First");
+        int second = createFilm("Second");
+        int third = createFilm("Third");
+        int userId = createUser("fan");
+        int otherUserId = createUser("critic");
+        filmDbStorage.addLike(second, userId);
+        filmDbStorage.addLike(second, otherUserId);
+        filmDbStorage.addLike(third, userId);
+
+        PopularityLeaderboard leaderboard = new PopularityLeaderboard(filmDbStorage);
+        leaderboard.load();
+
+        assertThat(leaderboard.top(3)).isEqualTo(List.of(second, third, first));
+        assertThat(leaderboard.top(10)).isEqualTo(ids(filmDbStorage.findPopular(10, null, null)));
+    }
+
+    @Test
+    public void testIncrementAndDecrementReorderFilms() {
+        int first = createFilm("First");
+        int second = createFilm("Second");
+        PopularityLeaderboard leaderboard = new PopularityLeaderboard(filmDbStorage);
+        leaderboard.load();
+
+        leaderboard.increment(second);
+        assertThat(leaderboard.top(2)).isEqualTo(List.of(second, first));
+
+        leaderboard.decrement(second);
+        assertThat(leaderboard.top(2)).isEqualTo(List.of(first, second));
+
+        leaderboard.remove(first);
+        assertThat(leaderboard.top(2)).isEqualTo(List.of(second));
+    }
+
+    @Test
+    public void testReconcileRepairsDrift() {
+        int filmId = createFilm("Drifted");
+        int userId = createUser("fan");
+        filmDbStorage.addLike(filmId, userId);
+        PopularityLeaderboard leaderboard = new PopularityLeaderboard(filmDbStorage);
+        leaderboard.load();
+
+        jdbcTemplate.update("UPDATE films SET like_count = 0 WHERE id = ?", filmId);
+        int newFilmId = createFilm("Created elsewhere");
+        filmDbStorage.addLike(newFilmId, userId);
+
+        assertThat(leaderboard.reconcile()).isEqualTo(2);
+        assertThat(leaderboard.top(2)).isEqualTo(List.of(newFilmId, filmId));
+        assertThat(leaderboard.reconcile()).isEqualTo(0);
+    }
+
+    private int createFilm(String name) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription("A test film description");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        film.setMpa(new Mpa(1, "G"));
+        return filmDbStorage.create(film).getId();
+    }
+
+    private int createUser(String login) {
+        User user = new User();
+        user.setEmail(login + "@example.com");
+        user.setLogin(login);
+        user.setName(login);
+        user.setBirthday(LocalDate.of(1980, 1, 1));
+        return userDbStorage.create(user).getId();
+    }
+
+    private static List<Integer> ids(List<Film> films) {
+        return films.stream().map(Film::getId).collect(Collectors.toList());
+    }
+}
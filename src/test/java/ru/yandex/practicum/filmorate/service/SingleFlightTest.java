@@ -0,0 +1,140 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+
+public class SingleFlightTest {
+
+    @Test
+    public void testConcurrentCallersShareOneLoad() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SingleFlight<Integer, String> singleFlight = new SingleFlight<>("test", meterRegistry);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            Future<String> leader = executor.submit(() -> singleFlight.execute(1, () -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                await(release);
+                return "film";
+            }));
+            loading.await();
+            List<Future<String>> followers = new ArrayList<>();
+            for (int i = 0; i < 7; i++) {
+                followers.add(executor.submit(() -> singleFlight.execute(1, () -> {
+                    loads.incrementAndGet();
+                    return "other";
+                })));
+            }
+            // даём ведомым встать в ожидание, пока загрузка ещё идёт
+            Thread.sleep(100);
+            release.countDown();
+
+            assertThat(leader.get()).isEqualTo("film");
+            for (Future<String> follower : followers) {
+                assertThat(follower.get()).isEqualTo("film");
+            }
+            assertThat(loads.get()).isEqualTo(1);
+            assertThat(meterRegistry.get(SingleFlight.CALLS).tag("result", "executed").counter().count())
+                    .isEqualTo(1.0);
+            assertThat(meterRegistry.get(SingleFlight.CALLS).tag("result", "coalesced").counter().count())
+                    .isEqualTo(7.0);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCallerAfterForgetDoesNotJoinEarlierLoad() throws Exception {
+        SingleFlight<Integer, String> singleFlight = new SingleFlight<>("test", new SimpleMeterRegistry());
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> stale = executor.submit(() -> singleFlight.execute(1, () -> {
+                loading.countDown();
+                await(release);
+                return "before write";
+            }));
+            loading.await();
+
+            singleFlight.forget(1);
+
+            // присоединившись к старой загрузке, вызов ждал бы release и упал бы по таймауту
+            Future<String> fresh = executor.submit(() -> singleFlight.execute(1, () -> "after write"));
+            assertThat(fresh.get(5, TimeUnit.SECONDS)).isEqualTo("after write");
+            release.countDown();
+            assertThat(stale.get()).isEqualTo("before write");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCallerAfterForgetAllDoesNotJoinEarlierLoad() throws Exception {
+        SingleFlight<Integer, String> singleFlight = new SingleFlight<>("test", new SimpleMeterRegistry());
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            executor.submit(() -> singleFlight.execute(1, () -> {
+                loading.countDown();
+                await(release);
+                return "before write";
+            }));
+            loading.await();
+
+            singleFlight.forgetAll();
+
+            // присоединившись к старой загрузке, вызов ждал бы release и упал бы по таймауту
+            Future<String> fresh = executor.submit(() -> singleFlight.execute(1, () -> "after write"));
+            assertThat(fresh.get(5, TimeUnit.SECONDS)).isEqualTo("after write");
+            release.countDown();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCompletedCallIsNotReused() {
+        SingleFlight<Integer, String> singleFlight = new SingleFlight<>("test", new SimpleMeterRegistry());
+        AtomicInteger loads = new AtomicInteger();
+
+        singleFlight.execute(1, () -> "v" + loads.incrementAndGet());
+
+        assertThat(singleFlight.execute(1, () -> "v" + loads.incrementAndGet())).isEqualTo("v2");
+    }
+
+    @Test
+    public void testFailureIsRethrownAndNotRemembered() {
+        SingleFlight<Integer, String> singleFlight = new SingleFlight<>("test", new SimpleMeterRegistry());
+
+        assertThatThrownBy(() -> singleFlight.execute(1, () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(singleFlight.execute(1, () -> "ok")).isEqualTo("ok");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package ru.yandex.practicum.filmorate.storage;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -7,13 +9,20 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.metrics.StorageMetrics;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmField;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.IntHashSet;
 import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
@@ -23,12 +32,19 @@ import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 public class FilmDBStorageTest {
 
     private final JdbcTemplate jdbcTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private GenreDbStorage genreDbStorage;
+    private MpaDbStorage mpaDbStorage;
     private FilmDbStorage filmDbStorage;
     private UserDbStorage userDbStorage;
 
     @BeforeEach
     public void setUp() {
-        filmDbStorage = new FilmDbStorage(jdbcTemplate);
+        genreDbStorage = new GenreDbStorage(jdbcTemplate);
+        mpaDbStorage = new MpaDbStorage(jdbcTemplate);
+        meterRegistry = new SimpleMeterRegistry();
+        filmDbStorage = new FilmDbStorage(jdbcTemplate, genreDbStorage, mpaDbStorage, meterRegistry);
+        userDbStorage = new UserDbStorage(jdbcTemplate, new SimpleMeterRegistry());
     }
 
     @Test
@@ -38,19 +54,15 @@ public class FilmDBStorageTest {
         film.setDescription("A family comedy without the family.");
         film.setReleaseDate(LocalDate.of(1990, 11, 10));
         film.setDuration(103);
-        film.setMpa(new Mpa());
-        film.getMpa().setId(2);
-        Genre genre = new Genre();
-        genre.setId(1);
+        film.setMpa(new Mpa(2, null));
+        Genre genre = new Genre(1, null);
         film.getGenres().add(genre);
 
         int id = (filmDbStorage.create(film)).getId();
         Film res = filmDbStorage.findById(id);
 
-        film.getMpa().setName("PG");
-        Genre expectedGenre = new Genre();
-        expectedGenre.setId(1);
-        expectedGenre.setName("Комедия");
+        film.setMpa(new Mpa(2, "PG"));
+        Genre expectedGenre = new Genre(1, "Комедия");
         film.setGenres(Collections.singletonList(expectedGenre));
 
         assertThat(res).usingRecursiveComparison().isEqualTo(film);
@@ -70,10 +82,8 @@ public class FilmDBStorageTest {
         film.setDescription("A family comedy without the family.");
         film.setReleaseDate(LocalDate.of(1990, 11, 10));
         film.setDuration(103);
-        film.setMpa(new Mpa());
-        film.getMpa().setId(2);
-        Genre genre = new Genre();
-        genre.setId(1);
+        film.setMpa(new Mpa(2, null));
+        Genre genre = new Genre(1, null);
         film.getGenres().add(genre);
         filmDbStorage.create(film);
 
@@ -107,10 +117,8 @@ public class FilmDBStorageTest {
         film.setDescription("A family comedy without the family.");
         film.setReleaseDate(LocalDate.of(1990, 11, 10));
         film.setDuration(103);
-        film.setMpa(new Mpa());
-        film.getMpa().setId(2);
-        Genre genre = new Genre();
-        genre.setId(1);
+        film.setMpa(new Mpa(2, null));
+        Genre genre = new Genre(1, null);
         film.getGenres().add(genre);
         filmDbStorage.create(film);
 
@@ -141,10 +149,8 @@ public class FilmDBStorageTest {
         film.setDescription("A family comedy without the family.");
         film.setReleaseDate(LocalDate.of(1990, 11, 10));
         film.setDuration(103);
-        film.setMpa(new Mpa());
-        film.getMpa().setId(2);
-        Genre genre = new Genre();
-        genre.setId(1);
+        film.setMpa(new Mpa(2, null));
+        Genre genre = new Genre(1, null);
         film.getGenres().add(genre);
         filmDbStorage.create(film);
 
@@ -163,9 +169,7 @@ public class FilmDBStorageTest {
         film.setDuration(120);
         film.setMpa(new Mpa(1, "G"));
 
-        Genre existingGenre = new Genre();
-        existingGenre.setId(1);
-        existingGenre.setName("Комедия");
+        Genre existingGenre = new Genre(1, "Комедия");
         film.getGenres().add(existingGenre);
 
         int filmId = (filmDbStorage.create(film)).getId();
@@ -182,4 +186,239 @@ public class FilmDBStorageTest {
         Film unchangedFilm = filmDbStorage.findById(filmId);
         assertThat(unchangedFilm.getMpa().getId()).isNotEqualTo(999);
     }
+
+    @Test
+    public void testFindPopularOrdersByLikesAndFiltersByYearAndGenre() {
+        int firstUserId = userDbStorage.create(buildUser("first")).getId();
+        int secondUserId = userDbStorage.create(buildUser("second")).getId();
+
+        Film lessPopular = buildFilm("Less popular", LocalDate.of(1971, 5, 1), 1);
+        lessPopular.setLikes(IntHashSet.of(firstUserId));
+        filmDbStorage.create(lessPopular);
+
+        Film mostPopular = buildFilm("Most popular", LocalDate.of(1971, 7, 1), 2);
+        mostPopular.setLikes(IntHashSet.of(firstUserId, secondUserId));
+        filmDbStorage.create(mostPopular);
+
+        Film otherYear = buildFilm("Other year", LocalDate.of(1972, 1, 1), 1);
+        otherYear.setLikes(IntHashSet.of(firstUserId, secondUserId));
+        filmDbStorage.create(otherYear);
+
+        List<Film> popular = filmDbStorage.findPopular(10, null, 1971);
+        assertThat(popular.size()).isEqualTo(2);
+        assertThat(popular.get(0).getId()).isEqualTo(mostPopular.getId());
+        assertThat(popular.get(0).getLikeCount()).isEqualTo(2);
+        assertThat(popular.get(1).getId()).isEqualTo(lessPopular.getId());
+
+        List<Film> popularComedies = filmDbStorage.findPopular(10, 1, 1971);
+        assertThat(popularComedies.size()).isEqualTo(1);
+        assertThat(popularComedies.get(0).getId()).isEqualTo(lessPopular.getId());
+
+        assertThat(filmDbStorage.findPopular(1, null, 1971).size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testAddAndRemoveLikeTouchOnlyOneRow() {
+        int userId = userDbStorage.create(buildUser("liker")).getId();
+        int filmId = filmDbStorage.create(buildFilm("Liked film", LocalDate.of(2001, 1, 1), 1)).getId();
+
+        assertThat(filmDbStorage.addLike(filmId, userId)).isTrue();
+        assertThat(filmDbStorage.addLike(filmId, userId)).isFalse();
+        assertThat(filmDbStorage.findLikes(List.of(filmId)).get(filmId)).isEqualTo(Set.of(userId));
+
+        assertThat(filmDbStorage.removeLike(filmId, userId)).isTrue();
+        assertThat(filmDbStorage.removeLike(filmId, userId)).isFalse();
+        assertThat(filmDbStorage.findLikes(List.of(filmId)).isEmpty()).isTrue();
+    }
+
+    @Test
+    public void testFilmsAreLoadedWithoutLikes() {
+        int userId = userDbStorage.create(buildUser("liker")).getId();
+        Film film = buildFilm("Liked film", LocalDate.of(2001, 1, 1), 1);
+        film.setLikes(IntHashSet.of(userId));
+        int filmId = filmDbStorage.create(film).getId();
+
+        Film found = filmDbStorage.findById(filmId);
+        assertThat(found.getLikes()).isNull();
+        assertThat(found.getLikeCount()).isEqualTo(1);
+        assertThat(filmDbStorage.findByIds(List.of(filmId)).get(0).getLikes()).isNull();
+    }
+
+    @Test
+    public void testFindLikesPage() {
+        int filmId = filmDbStorage.create(buildFilm("Liked film", LocalDate.of(2001, 1, 1), 1)).getId();
+        List<Integer> userIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            int userId = userDbStorage.create(buildUser("liker" + i)).getId();
+            filmDbStorage.addLike(filmId, userId);
+            userIds.add(userId);
+        }
+
+        assertThat(filmDbStorage.findLikesPage(filmId, 0, 2)).isEqualTo(userIds.subList(0, 2));
+        assertThat(filmDbStorage.findLikesPage(filmId, userIds.get(1), 2)).isEqualTo(userIds.subList(2, 3));
+    }
+
+    @Test
+    public void testLikeCountFollowsLikes() {
+        int userId = userDbStorage.create(buildUser("counted")).getId();
+        int otherUserId = userDbStorage.create(buildUser("deleted")).getId();
+        Film film = buildFilm("Counted film", LocalDate.of(2001, 1, 1), 1);
+        film.setLikes(IntHashSet.of(userId));
+        int filmId = filmDbStorage.create(film).getId();
+        assertThat(filmDbStorage.findById(filmId).getLikeCount()).isEqualTo(1);
+
+        filmDbStorage.addLike(filmId, otherUserId);
+        filmDbStorage.addLike(filmId, otherUserId);
+        assertThat(filmDbStorage.findById(filmId).getLikeCount()).isEqualTo(2);
+
+        // так удаляет пользователя UserService: сначала лайки через хранилище фильмов
+        assertThat(filmDbStorage.removeLikesBy(otherUserId)).isEqualTo(List.of(filmId));
+        userDbStorage.delete(otherUserId);
+        assertThat(filmDbStorage.findById(filmId).getLikeCount()).isEqualTo(1);
+
+        filmDbStorage.removeLike(filmId, userId);
+        filmDbStorage.removeLike(filmId, userId);
+        assertThat(filmDbStorage.findById(filmId).getLikeCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void testExistsById() {
+        int filmId = filmDbStorage.create(buildFilm("Existing film", LocalDate.of(2001, 1, 1), 1)).getId();
+
+        assertThat(filmDbStorage.existsById(filmId)).isTrue();
+        assertThat(filmDbStorage.existsById(-1)).isFalse();
+    }
+
+    @Test
+    public void testFindByIdsKeepsRequestedOrder() {
+        int first = filmDbStorage.create(buildFilm("First", LocalDate.of(2001, 1, 1), 1)).getId();
+        int second = filmDbStorage.create(buildFilm("Second", LocalDate.of(2002, 1, 1), 2)).getId();
+
+        List<Film> films = filmDbStorage.findByIds(List.of(second, -1, first));
+
+        assertThat(films.size()).isEqualTo(2);
+        assertThat(films.get(0).getId()).isEqualTo(second);
+        assertThat(films.get(0).getGenres().get(0).getId()).isEqualTo(2);
+        assertThat(films.get(1).getId()).isEqualTo(first);
+    }
+
+    @Test
+    public void testFindPageReadsOnlyRequestedFields() {
+        int filmId = filmDbStorage.create(buildFilm("Projected film", LocalDate.of(2001, 1, 1), 2)).getId();
+
+        Film full = filmDbStorage.findPage(filmId - 1, 1, EnumSet.allOf(FilmField.class)).get(0);
+        assertThat(full).usingRecursiveComparison().isEqualTo(filmDbStorage.findById(filmId));
+
+        Film projected = filmDbStorage.findPage(filmId - 1, 1, EnumSet.of(FilmField.NAME, FilmField.MPA)).get(0);
+        assertThat(projected.getId()).isEqualTo(filmId);
+        assertThat(projected.getName()).isEqualTo("Projected film");
+        assertThat(projected.getMpa().getId()).isEqualTo(1);
+        assertThat(projected.getDescription()).isNull();
+        assertThat(projected.getReleaseDate()).isNull();
+        assertThat(projected.getGenres().isEmpty()).isTrue();
+    }
+
+    @Test
+    public void testStreamAllMatchesFindById() {
+        int userId = userDbStorage.create(buildUser("liker")).getId();
+        Film film = buildFilm("Streamed film", LocalDate.of(2003, 1, 1), 1);
+        Genre drama = new Genre(2, null);
+        film.getGenres().add(drama);
+        film.setLikes(IntHashSet.of(userId));
+        int filmId = filmDbStorage.create(film).getId();
+        int emptyFilmId = filmDbStorage.create(buildFilm("Another film", LocalDate.of(2004, 1, 1), 3)).getId();
+
+        List<Film> streamed = new ArrayList<>();
+        filmDbStorage.streamAll(streamed::add);
+
+        // в отличие от findById выгрузка несёт и id лайкнувших
+        Film expected = filmDbStorage.findById(filmId);
+        expected.setLikes(IntHashSet.of(userId));
+        Film streamedFilm = streamed.stream().filter(f -> f.getId() == filmId).findFirst().orElseThrow();
+        assertThat(streamedFilm).usingRecursiveComparison().isEqualTo(expected);
+        Film expectedEmpty = filmDbStorage.findById(emptyFilmId);
+        expectedEmpty.setLikes(new IntHashSet());
+        Film streamedEmptyFilm = streamed.stream().filter(f -> f.getId() == emptyFilmId).findFirst().orElseThrow();
+        assertThat(streamedEmptyFilm).usingRecursiveComparison().isEqualTo(expectedEmpty);
+    }
+
+    @Test
+    public void testStreamAllReadsOnePageAhead() {
+        filmDbStorage.setExportPageSize(2);
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(filmDbStorage.create(buildFilm("Paged film " + i, LocalDate.of(2001, 1, 1), i + 1)).getId());
+        }
+        Counter filmRows = meterRegistry.get(StorageMetrics.ROWS_READ).tag("query", "films").counter();
+        double before = filmRows.count();
+
+        List<Film> streamed = new ArrayList<>();
+        List<Double> rowsReadBeforeEach = new ArrayList<>();
+        filmDbStorage.streamAll(film -> {
+            rowsReadBeforeEach.add(filmRows.count() - before);
+            streamed.add(film);
+        });
+
+        // фильм отдаётся, когда прочитана только его страница, а не вся таблица
+        assertThat(rowsReadBeforeEach.get(0)).isEqualTo(2.0);
+        assertThat(rowsReadBeforeEach.get(2)).isEqualTo(4.0);
+        List<Integer> streamedIds = new ArrayList<>();
+        for (Film film : streamed) {
+            streamedIds.add(film.getId());
+            Film expected = filmDbStorage.findById(film.getId());
+            expected.setLikes(new IntHashSet());
+            assertThat(film).usingRecursiveComparison().isEqualTo(expected);
+        }
+        assertThat(streamedIds).isEqualTo(ids);
+    }
+
+    @Test
+    public void testFindAllSharesGenreAndMpaInstances() {
+        filmDbStorage.create(buildFilm("First", LocalDate.of(2001, 1, 1), 1));
+        filmDbStorage.create(buildFilm("Second", LocalDate.of(2002, 1, 1), 1));
+
+        List<Film> films = filmDbStorage.findAll();
+        Film first = films.get(films.size() - 2);
+        Film second = films.get(films.size() - 1);
+
+        assertThat(second.getMpa()).isSameAs(first.getMpa());
+        assertThat(second.getGenres().get(0)).isSameAs(first.getGenres().get(0));
+    }
+
+    @Test
+    public void testCatalogRowsAddedAfterStartupAreResolved() {
+        // справочники уже загружены, новые строки появляются в обход хранилищ
+        genreDbStorage.findAll();
+        mpaDbStorage.findAll();
+        jdbcTemplate.update("INSERT INTO genres (id, name) VALUES (100, 'Сериал')");
+        jdbcTemplate.update("INSERT INTO mpa (id, name) VALUES (100, 'TV-14')");
+        Film film = buildFilm("Scrubs", LocalDate.of(2001, 10, 2), 100);
+        film.setMpa(new Mpa(100, null));
+
+        Film found = filmDbStorage.findById(filmDbStorage.create(film).getId());
+
+        assertThat(found.getGenres().get(0)).isEqualTo(new Genre(100, "Сериал"));
+        assertThat(found.getMpa()).isEqualTo(new Mpa(100, "TV-14"));
+    }
+
+    private static Film buildFilm(String name, LocalDate releaseDate, int genreId) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription("A test film description");
+        film.setReleaseDate(releaseDate);
+        film.setDuration(100);
+        film.setMpa(new Mpa(1, "G"));
+        Genre genre = new Genre(genreId, null);
+        film.getGenres().add(genre);
+        return film;
+    }
+
+    private static User buildUser(String login) {
+        User user = new User();
+        user.setEmail(login + "@example.com");
+        user.setLogin(login);
+        user.setName(login);
+        user.setBirthday(LocalDate.of(1980, 1, 1));
+        return user;
+    }
 }
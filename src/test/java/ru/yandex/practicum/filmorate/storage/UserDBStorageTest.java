@@ -1,14 +1,20 @@
 package ru.yandex.practicum.filmorate.storage;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.IntHashSet;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserField;
+import ru.yandex.practicum.filmorate.model.UserSummary;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Set;
 
@@ -23,7 +29,7 @@ public class UserDBStorageTest {
 
     @BeforeEach
     public void setUp() {
-        userDbStorage = new UserDbStorage(jdbcTemplate);
+        userDbStorage = new UserDbStorage(jdbcTemplate, new SimpleMeterRegistry());
     }
 
     @Test
@@ -63,7 +69,7 @@ public class UserDBStorageTest {
         user2.setLogin("J.D.");
         user2.setName("John Dorian");
         user2.setBirthday(LocalDate.of(1985, 6, 22));
-        Set<Integer> friends = Set.of(userId, userId1);
+        IntHashSet friends = IntHashSet.of(userId, userId1);
         user2.setFriends(friends);
         userDbStorage.create(user2);
 
@@ -153,4 +159,193 @@ public class UserDBStorageTest {
         assertThat(isDeleted).isTrue();
         assertThat(userDbStorage.findById(user.getId())).isNull();
     }
+
+    @Test
+    public void testAddAndRemoveFriendship() {
+        User user = new User();
+        user.setEmail("bob.kelso@sacredheart.com");
+        user.setLogin("kelso");
+        user.setName("Robert");
+        user.setBirthday(LocalDate.of(1949, 1, 1));
+        int userId = userDbStorage.create(user).getId();
+
+        User friend = new User();
+        friend.setEmail("perry.cox@sacredheart.com");
+        friend.setLogin("perry");
+        friend.setName("Peregrine");
+        friend.setBirthday(LocalDate.of(1968, 1, 1));
+        int friendId = userDbStorage.create(friend).getId();
+
+        assertThat(userDbStorage.addFriendship(userId, friendId)).isTrue();
+        assertThat(userDbStorage.addFriendship(userId, friendId)).isFalse();
+        assertThat(userDbStorage.findById(userId).getFriends()).isEqualTo(Set.of(friendId));
+        assertThat(userDbStorage.findById(friendId).getFriends().isEmpty()).isTrue();
+
+        assertThat(userDbStorage.removeFriendship(userId, friendId)).isTrue();
+        assertThat(userDbStorage.removeFriendship(userId, friendId)).isFalse();
+        assertThat(userDbStorage.findById(userId).getFriends().isEmpty()).isTrue();
+    }
+
+    @Test
+    public void testExistsById() {
+        User user = new User();
+        user.setEmail("bob.kelso@sacredheart.com");
+        user.setLogin("kelso");
+        user.setName("Robert");
+        user.setBirthday(LocalDate.of(1949, 1, 1));
+        int userId = userDbStorage.create(user).getId();
+
+        assertThat(userDbStorage.existsById(userId)).isTrue();
+        assertThat(userDbStorage.existsById(-1)).isFalse();
+    }
+
+    @Test
+    public void testFindFriendsAndCommonFriends() {
+        User user = new User();
+        user.setEmail("bob.kelso@sacredheart.com");
+        user.setLogin("kelso");
+        user.setName("Robert");
+        user.setBirthday(LocalDate.of(1949, 1, 1));
+        int commonFriendId = userDbStorage.create(user).getId();
+
+        User user1 = new User();
+        user1.setEmail("perry.cox@sacredheart.com");
+        user1.setLogin("perry");
+        user1.setName("Peregrine");
+        user1.setBirthday(LocalDate.of(1968, 1, 1));
+        int ownFriendId = userDbStorage.create(user1).getId();
+
+        User user2 = new User();
+        user2.setEmail("vanillabear.dorian@sacredheart.com");
+        user2.setLogin("J.D.");
+        user2.setName("John Dorian");
+        user2.setBirthday(LocalDate.of(1985, 6, 22));
+        user2.setFriends(IntHashSet.of(commonFriendId, ownFriendId));
+        int userId = userDbStorage.create(user2).getId();
+
+        User user3 = new User();
+        user3.setEmail("chris.turk@sacredheart.com");
+        user3.setLogin("turk");
+        user3.setName("Christopher Turk");
+        user3.setBirthday(LocalDate.of(1985, 4, 15));
+        user3.setFriends(IntHashSet.of(commonFriendId));
+        int otherId = userDbStorage.create(user3).getId();
+
+        List<UserSummary> friends = userDbStorage.findFriends(userId);
+        assertThat(friends.size()).isEqualTo(2);
+        assertThat(friends.get(0)).isEqualTo(new UserSummary(commonFriendId, "bob.kelso@sacredheart.com",
+                "kelso", "Robert", LocalDate.of(1949, 1, 1)));
+        assertThat(friends.get(1).getId()).isEqualTo(ownFriendId);
+
+        List<UserSummary> commonFriends = userDbStorage.findCommonFriends(userId, otherId);
+        assertThat(commonFriends.size()).isEqualTo(1);
+        assertThat(commonFriends.get(0).getId()).isEqualTo(commonFriendId);
+    }
+
+    @Test
+    public void testFindPageIsOrderedByIdAfterCursor() {
+        User user = new User();
+        user.setEmail("bob.kelso@sacredheart.com");
+        user.setLogin("kelso");
+        user.setName("Robert");
+        user.setBirthday(LocalDate.of(1949, 1, 1));
+        int firstId = userDbStorage.create(user).getId();
+
+        User user1 = new User();
+        user1.setEmail("perry.cox@sacredheart.com");
+        user1.setLogin("perry");
+        user1.setName("Peregrine");
+        user1.setBirthday(LocalDate.of(1968, 1, 1));
+        int secondId = userDbStorage.create(user1).getId();
+
+        List<User> firstPage = userDbStorage.findPage(firstId - 1, 1, EnumSet.allOf(UserField.class));
+        assertThat(firstPage.size()).isEqualTo(1);
+        assertThat(firstPage.get(0).getId()).isEqualTo(firstId);
+
+        List<User> secondPage = userDbStorage.findPage(firstId, 1, EnumSet.allOf(UserField.class));
+        assertThat(secondPage.size()).isEqualTo(1);
+        assertThat(secondPage.get(0).getId()).isEqualTo(secondId);
+
+        assertThat(userDbStorage.findPage(secondId, 1, EnumSet.allOf(UserField.class)).isEmpty()).isTrue();
+    }
+
+    @Test
+    public void testFindPageReadsOnlyRequestedFields() {
+        User user = new User();
+        user.setEmail("bob.kelso@sacredheart.com");
+        user.setLogin("kelso");
+        user.setName("Robert");
+        user.setBirthday(LocalDate.of(1949, 1, 1));
+        int id = userDbStorage.create(user).getId();
+
+        User user1 = new User();
+        user1.setEmail("perry.cox@sacredheart.com");
+        user1.setLogin("perry");
+        user1.setName("Peregrine");
+        user1.setBirthday(LocalDate.of(1968, 1, 1));
+        int friendId = userDbStorage.create(user1).getId();
+        userDbStorage.addFriendship(id, friendId);
+
+        User loginOnly = userDbStorage.findPage(id - 1, 1, EnumSet.of(UserField.LOGIN)).get(0);
+        assertThat(loginOnly.getLogin()).isEqualTo("kelso");
+        assertThat(loginOnly.getEmail()).isNull();
+        assertThat(loginOnly.getBirthday()).isNull();
+        assertThat(loginOnly.getFriends().isEmpty()).isTrue();
+
+        User withFriends = userDbStorage.findPage(id - 1, 1, EnumSet.of(UserField.FRIENDS)).get(0);
+        assertThat(withFriends.getFriends()).isEqualTo(Set.of(friendId));
+        assertThat(withFriends.getLogin()).isNull();
+    }
+
+    @Test
+    public void testStreamAllReturnsUsersWithFriends() {
+        User user = new User();
+        user.setEmail("bob.kelso@sacredheart.com");
+        user.setLogin("kelso");
+        user.setName("Robert");
+        user.setBirthday(LocalDate.of(1949, 1, 1));
+        int friendId = userDbStorage.create(user).getId();
+
+        User user1 = new User();
+        user1.setEmail("perry.cox@sacredheart.com");
+        user1.setLogin("perry");
+        user1.setName("Peregrine");
+        user1.setBirthday(LocalDate.of(1968, 1, 1));
+        user1.setFriends(IntHashSet.of(friendId));
+        int userId = userDbStorage.create(user1).getId();
+
+        List<User> streamed = new ArrayList<>();
+        userDbStorage.streamAll(streamed::add);
+
+        User streamedUser = streamed.stream().filter(u -> u.getId() == userId).findFirst().orElseThrow();
+        assertThat(streamedUser).usingRecursiveComparison().isEqualTo(userDbStorage.findById(userId));
+        User streamedFriend = streamed.stream().filter(u -> u.getId() == friendId).findFirst().orElseThrow();
+        assertThat(streamedFriend.getFriends().isEmpty()).isTrue();
+    }
+
+    @Test
+    public void testStreamAllKeepsFriendsAcrossPages() {
+        userDbStorage.setExportPageSize(2);
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            User user = new User();
+            user.setEmail("intern" + i + "@sacredheart.com");
+            user.setLogin("intern" + i);
+            user.setName("Intern " + i);
+            user.setBirthday(LocalDate.of(1975, 1, 1));
+            ids.add(userDbStorage.create(user).getId());
+        }
+        // дружбы пересекают границы страниц в обе стороны
+        userDbStorage.addFriendship(ids.get(0), ids.get(4));
+        userDbStorage.addFriendship(ids.get(3), ids.get(1));
+        userDbStorage.addFriendship(ids.get(3), ids.get(2));
+
+        List<Integer> streamedIds = new ArrayList<>();
+        userDbStorage.streamAll(user -> {
+            streamedIds.add(user.getId());
+            assertThat(user).usingRecursiveComparison().isEqualTo(userDbStorage.findById(user.getId()));
+        });
+
+        assertThat(streamedIds).isEqualTo(ids);
+    }
 }
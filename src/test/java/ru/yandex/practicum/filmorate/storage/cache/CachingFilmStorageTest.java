@@ -0,0 +1,143 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.MpaDbStorage;
+import ru.yandex.practicum.filmorate.storage.UserDbStorage;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@JdbcTest
+public class CachingFilmStorageTest {
+
+    private final JdbcTemplate jdbcTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private CachingFilmStorage storage;
+    private UserDbStorage userStorage;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        storage = new CachingFilmStorage(new FilmDbStorage(jdbcTemplate, new GenreDbStorage(jdbcTemplate),
+                new MpaDbStorage(jdbcTemplate), meterRegistry), 100, Duration.ofMinutes(1), meterRegistry);
+        userStorage = new UserDbStorage(jdbcTemplate, meterRegistry);
+    }
+
+    @Test
+    public void testRepeatedReadsAreServedFromCacheAndPublished() {
+        int id = storage.create(buildFilm("Scrubs")).getId();
+
+        storage.findById(id);
+        storage.findById(id);
+
+        assertThat(storage.getStats().getHits()).isEqualTo(1L);
+        assertThat(meterRegistry.get(CacheMetrics.HITS).tag("cache", "films").functionCounter().count())
+                .isEqualTo(1.0);
+        assertThat(meterRegistry.get(CacheMetrics.MISSES).tag("cache", "films").functionCounter().count())
+                .isEqualTo(1.0);
+        assertThat(meterRegistry.get(CacheMetrics.SIZE).tag("cache", "films").gauge().value()).isEqualTo(1.0);
+    }
+
+    @Test
+    public void testCallersGetTheirOwnCopies() {
+        int id = storage.create(buildFilm("Scrubs")).getId();
+
+        Film loaded = storage.findById(id);
+        loaded.setName("changed");
+        loaded.getGenres().clear();
+        Film cached = storage.findById(id);
+        cached.setLikeCount(100);
+
+        Film again = storage.findById(id);
+        assertThat(again.getName()).isEqualTo("Scrubs");
+        assertThat(again.getGenres().size()).isEqualTo(1);
+        assertThat(again.getLikeCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void testLikeChangesInvalidateFilm() {
+        int id = storage.create(buildFilm("Scrubs")).getId();
+        int userId = userStorage.create(buildUser("jd")).getId();
+        storage.findById(id);
+
+        storage.addLike(id, userId);
+        assertThat(storage.findById(id).getLikeCount()).isEqualTo(1);
+
+        storage.removeLike(id, userId);
+        assertThat(storage.findById(id).getLikeCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void testUpdateInvalidatesFilm() {
+        int id = storage.create(buildFilm("Scrubs")).getId();
+        storage.findById(id);
+
+        Film renamed = buildFilm("Scrubs: Med School");
+        renamed.setId(id);
+        storage.update(id, renamed);
+
+        assertThat(storage.findById(id).getName()).isEqualTo("Scrubs: Med School");
+    }
+
+    @Test
+    public void testDeleteInvalidatesFilm() {
+        int id = storage.create(buildFilm("Scrubs")).getId();
+        storage.findById(id);
+
+        storage.delete(id);
+
+        assertThat(storage.findById(id)).isNull();
+        assertThat(storage.existsById(id)).isFalse();
+    }
+
+    @Test
+    public void testRemoveLikesByInvalidatesLikedFilms() {
+        int first = storage.create(buildFilm("Scrubs")).getId();
+        int second = storage.create(buildFilm("Cougar Town")).getId();
+        int userId = userStorage.create(buildUser("jd")).getId();
+        storage.addLike(first, userId);
+        storage.addLike(second, userId);
+        storage.findById(first);
+        storage.findById(second);
+
+        storage.removeLikesBy(userId);
+
+        assertThat(storage.findById(first).getLikeCount()).isEqualTo(0);
+        assertThat(storage.findById(second).getLikeCount()).isEqualTo(0);
+    }
+
+    private Film buildFilm(String name) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription("Sacred Heart");
+        film.setReleaseDate(LocalDate.of(2001, 10, 2));
+        film.setDuration(22);
+        film.setMpa(new Mpa(1, null));
+        film.getGenres().add(new Genre(1, null));
+        return film;
+    }
+
+    private User buildUser(String login) {
+        User user = new User();
+        user.setEmail(login + "@sacredheart.com");
+        user.setLogin(login);
+        user.setName(login);
+        user.setBirthday(LocalDate.of(1975, 1, 1));
+        return user;
+    }
+}
@@ -0,0 +1,130 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserSummary;
+import ru.yandex.practicum.filmorate.storage.UserDbStorage;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@JdbcTest
+public class CachingUserStorageTest {
+
+    private final JdbcTemplate jdbcTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    CachingUserStorage storage;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        storage = new CachingUserStorage(new UserDbStorage(jdbcTemplate, meterRegistry), 100,
+                Duration.ofMinutes(1), meterRegistry);
+    }
+
+    @Test
+    public void testRepeatedReadsAreServedFromCache() {
+        int id = storage.create(buildUser("turk")).getId();
+
+        storage.findById(id);
+        storage.findById(id);
+
+        assertThat(storage.getStats().getHits()).isEqualTo(1L);
+        assertThat(storage.getStats().getMisses()).isEqualTo(1L);
+        assertThat(meterRegistry.get(CacheMetrics.HITS).tag("cache", "users").functionCounter().count())
+                .isEqualTo(1.0);
+        assertThat(meterRegistry.get(CacheMetrics.MISSES).tag("cache", "users").functionCounter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    public void testCallersGetTheirOwnCopies() {
+        int id = storage.create(buildUser("jd")).getId();
+
+        User loaded = storage.findById(id);
+        loaded.setName("changed");
+        loaded.getFriends().addInt(42);
+        User cached = storage.findById(id);
+        cached.setLogin("changed");
+
+        User again = storage.findById(id);
+        assertThat(again.getName()).isEqualTo("jd");
+        assertThat(again.getLogin()).isEqualTo("jd");
+        assertThat(again.getFriends().isEmpty()).isTrue();
+    }
+
+    @Test
+    public void testFriendshipChangesInvalidateBothUsers() {
+        int id = storage.create(buildUser("jd")).getId();
+        int friendId = storage.create(buildUser("turk")).getId();
+        storage.findById(id);
+        storage.findById(friendId);
+
+        storage.addFriendship(id, friendId);
+
+        assertThat(storage.findById(id).getFriends()).isEqualTo(Set.of(friendId));
+        List<UserSummary> friends = storage.findFriends(id);
+        assertThat(friends.size()).isEqualTo(1);
+        assertThat(friends.get(0).getLogin()).isEqualTo("turk");
+
+        storage.removeFriendship(id, friendId);
+
+        assertThat(storage.findFriends(id).isEmpty()).isTrue();
+    }
+
+    @Test
+    public void testUpdateIsVisibleInFriendLists() {
+        int id = storage.create(buildUser("jd")).getId();
+        int friendId = storage.create(buildUser("turk")).getId();
+        storage.addFriendship(id, friendId);
+        storage.findFriends(id);
+
+        User renamed = buildUser("chris");
+        renamed.setId(friendId);
+        storage.update(friendId, renamed);
+
+        assertThat(storage.findFriends(id).get(0).getLogin()).isEqualTo("chris");
+    }
+
+    @Test
+    public void testFriendListsDoNotLoadFriendsIntoCache() {
+        int id = storage.create(buildUser("jd")).getId();
+        int friendId = storage.create(buildUser("turk")).getId();
+        storage.addFriendship(id, friendId);
+
+        assertThat(storage.findFriends(id).size()).isEqualTo(1);
+        assertThat(storage.getStats().getSize()).isEqualTo(0L);
+    }
+
+    @Test
+    public void testCommonFriendsMatchDatabase() {
+        int first = storage.create(buildUser("jd")).getId();
+        int second = storage.create(buildUser("elliot")).getId();
+        int common = storage.create(buildUser("turk")).getId();
+        storage.addFriendship(first, common);
+        storage.addFriendship(second, common);
+
+        assertThat(storage.findCommonFriends(first, second))
+                .isEqualTo(new UserDbStorage(jdbcTemplate, new SimpleMeterRegistry()).findCommonFriends(first, second));
+    }
+
+    private User buildUser(String login) {
+        User user = new User();
+        user.setEmail(login + "@sacredheart.com");
+        user.setLogin(login);
+        user.setName(login);
+        user.setBirthday(LocalDate.of(1975, 1, 1));
+        return user;
+    }
+}
@@ -0,0 +1,82 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+public class LruCacheTest {
+
+    @Test
+    public void testEvictsLeastRecentlyUsedEntry() {
+        LruCache<Integer, String> cache = new LruCache<>(2, Duration.ofMinutes(1));
+        cache.put(1, "one");
+        cache.put(2, "two");
+        cache.get(1);
+        cache.put(3, "three");
+
+        assertThat(cache.get(1)).isEqualTo("one");
+        assertThat(cache.get(2)).isNull();
+        assertThat(cache.get(3)).isEqualTo("three");
+        assertThat(cache.stats().getEvictions()).isEqualTo(1L);
+    }
+
+    @Test
+    public void testExpiredEntryIsNotReturned() throws InterruptedException {
+        LruCache<Integer, String> cache = new LruCache<>(10, Duration.ofMillis(1));
+        cache.put(1, "one");
+        Thread.sleep(5);
+
+        assertThat(cache.get(1)).isNull();
+        assertThat(cache.contains(1)).isFalse();
+    }
+
+    @Test
+    public void testPutIfFreshSkipsValueLoadedBeforeInvalidation() {
+        LruCache<Integer, String> cache = new LruCache<>(10, Duration.ofMinutes(1));
+        long stamp = cache.stamp();
+        cache.invalidate(1);
+        cache.putIfFresh(1, "stale", stamp);
+
+        assertThat(cache.get(1)).isNull();
+
+        cache.putIfFresh(1, "fresh", cache.stamp());
+        assertThat(cache.get(1)).isEqualTo("fresh");
+    }
+
+    @Test
+    public void testInvalidatingOtherKeyDoesNotBlockPut() {
+        LruCache<Integer, String> cache = new LruCache<>(10_000, Duration.ofMinutes(1));
+        long stamp = cache.stamp();
+        for (int key = 2; key < 1_000; key++) {
+            cache.invalidate(key);
+        }
+        cache.putIfFresh(1, "one", stamp);
+
+        assertThat(cache.get(1)).isEqualTo("one");
+    }
+
+    @Test
+    public void testInvalidateAllBlocksLoadsStartedBefore() {
+        LruCache<Integer, String> cache = new LruCache<>(10_000, Duration.ofMinutes(1));
+        long stamp = cache.stamp();
+        cache.invalidateAll();
+        cache.putIfFresh(1, "stale", stamp);
+
+        assertThat(cache.get(1)).isNull();
+    }
+
+    @Test
+    public void testStatsCountHitsAndMisses() {
+        LruCache<Integer, String> cache = new LruCache<>(10, Duration.ofMinutes(1));
+        cache.put(1, "one");
+        cache.get(1);
+        cache.get(2);
+
+        CacheStats stats = cache.stats();
+        assertThat(stats.getHits()).isEqualTo(1L);
+        assertThat(stats.getMisses()).isEqualTo(1L);
+        assertThat(stats.getSize()).isEqualTo(1L);
+    }
+}